@@ -0,0 +1,462 @@
+package icurves.algorithm.astar;
+
+import java.util.Arrays;
+
+/**
+ * A* over a 4-connected weighted grid of cells kept in flat arrays, cell x, y has index y * width + x.
+ * Moving into a cell costs {@link #MOVE_COST} plus the cost of that cell.
+ * The heuristic is Manhattan distance times the cheapest step, so it is admissible and consistent
+ * and returned paths are of least cost.
+ * Open sets are {@link IndexedHeap}s with decrease-key,
+ * and per-search state is invalidated by bumping a generation counter instead of clearing arrays,
+ * so one instance can run many searches on the same grid.
+ * Not thread-safe, each thread needs its own instance.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public final class GridAStar {
+
+    /**
+     * Cost of moving to a neighbouring cell, on top of the cell cost.
+     */
+    public static final int MOVE_COST = 2500;
+
+    private static final int NONE = -1;
+    private static final int[] NO_PATH = new int[0];
+
+    private final int width, height;
+
+    private final boolean[] walkable;
+
+    /**
+     * Extra cost of entering each cell.
+     */
+    private final int[] cost;
+
+    /**
+     * Min cost of walkable cells, recomputed when cells change.
+     */
+    private int minCost = 0;
+    private boolean minCostValid = false;
+
+    private boolean bidirectional = false;
+
+    private final Frontier forward;
+
+    /**
+     * Only allocated for bidirectional search.
+     */
+    private Frontier backward;
+
+    private int generation = 0;
+
+    private int expanded = 0;
+    private int pathCost = NONE;
+
+    /**
+     * Constructs a grid with all cells walkable and of zero cost.
+     *
+     * @param width grid width
+     * @param height grid height
+     */
+    public GridAStar(int width, int height) {
+        if (width < 1 || height < 1)
+            throw new IllegalArgumentException("width and height cannot < 1");
+
+        this.width = width;
+        this.height = height;
+
+        int size = width * height;
+
+        walkable = new boolean[size];
+        Arrays.fill(walkable, true);
+
+        cost = new int[size];
+
+        forward = new Frontier(size);
+    }
+
+    /**
+     * @return grid width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return grid height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public void setWalkable(int x, int y, boolean walkable) {
+        this.walkable[index(x, y)] = walkable;
+        minCostValid = false;
+    }
+
+    public boolean isWalkable(int x, int y) {
+        return walkable[index(x, y)];
+    }
+
+    /**
+     * @param cost non-negative extra cost of entering cell x, y
+     */
+    public void setCost(int x, int y, int cost) {
+        if (cost < 0)
+            throw new IllegalArgumentException("Cost cannot be negative: " + cost);
+
+        this.cost[index(x, y)] = cost;
+        minCostValid = false;
+    }
+
+    public int getCost(int x, int y) {
+        return cost[index(x, y)];
+    }
+
+    /**
+     * @param bidirectional search from both ends at once, expanding the smaller open set first
+     */
+    public void setBidirectional(boolean bidirectional) {
+        this.bidirectional = bidirectional;
+    }
+
+    public boolean isBidirectional() {
+        return bidirectional;
+    }
+
+    /**
+     * @return number of cells expanded by the last search
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * @return cost of the path found by the last search, or -1 if there was none
+     */
+    public int getPathCost() {
+        return pathCost;
+    }
+
+    private int index(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            throw new IndexOutOfBoundsException("Cell out of grid: " + x + "," + y);
+
+        return y * width + x;
+    }
+
+    /**
+     * The start cell itself need not be walkable.
+     *
+     * @return packed x, y of cells from the one after start to target inclusive,
+     * or an empty array if there is no path or start is target
+     */
+    public int[] findPath(int startX, int startY, int targetX, int targetY) {
+        int start = index(startX, startY);
+        int target = index(targetX, targetY);
+
+        expanded = 0;
+        pathCost = NONE;
+
+        if (start == target || !walkable[target])
+            return NO_PATH;
+
+        if (!minCostValid) {
+            minCost = computeMinCost();
+            minCostValid = true;
+        }
+
+        nextGeneration();
+
+        if (bidirectional) {
+            if (backward == null)
+                backward = new Frontier(walkable.length);
+
+            return findPathBidirectional(start, target);
+        }
+
+        return findPathForward(start, target);
+    }
+
+    private int[] findPathForward(int start, int target) {
+        forward.clear();
+        forward.open(start, 0, NONE, h(start, target));
+
+        int[] neighbors = new int[4];
+
+        while (!forward.isEmpty()) {
+            int current = forward.poll();
+            expanded++;
+
+            if (current == target) {
+                pathCost = forward.gCost[target];
+                return buildPath(start, target, NONE);
+            }
+
+            for (int i = 0, count = neighbors(current, neighbors); i < count; i++) {
+                int next = neighbors[i];
+
+                if (!walkable[next] || forward.isClosed(next))
+                    continue;
+
+                int g = forward.gCost[current] + MOVE_COST + cost[next];
+                forward.relax(next, g, current, g + h(next, target));
+            }
+        }
+
+        return NO_PATH;
+    }
+
+    /**
+     * Both searches use their own consistent heuristic, so once the min F cost on either side
+     * is no less than the best path through a cell reached from both sides, that path is of least cost.
+     */
+    private int[] findPathBidirectional(int start, int target) {
+        forward.clear();
+        forward.open(start, 0, NONE, h(start, target));
+
+        backward.clear();
+        backward.open(target, 0, NONE, h(target, start));
+
+        int best = Integer.MAX_VALUE;
+        int meeting = NONE;
+
+        int[] neighbors = new int[4];
+
+        while (!forward.isEmpty() && !backward.isEmpty()
+                && forward.minF() < best && backward.minF() < best) {
+
+            boolean isForward = forward.size() <= backward.size();
+
+            Frontier side = isForward ? forward : backward;
+            Frontier other = isForward ? backward : forward;
+            int goal = isForward ? target : start;
+
+            int current = side.poll();
+            expanded++;
+
+            // paths end at start, so the backward search never leaves it
+            if (!isForward && current == start)
+                continue;
+
+            for (int i = 0, count = neighbors(current, neighbors); i < count; i++) {
+                int next = neighbors[i];
+
+                if (side.isClosed(next))
+                    continue;
+
+                int g;
+
+                // going backwards, the step from next to current is paid by current
+                if (isForward) {
+                    if (!walkable[next])
+                        continue;
+
+                    g = side.gCost[current] + MOVE_COST + cost[next];
+                } else {
+                    if (!walkable[next] && next != start)
+                        continue;
+
+                    g = side.gCost[current] + MOVE_COST + cost[current];
+                }
+
+                side.relax(next, g, current, g + h(next, goal));
+
+                if (other.isReached(next) && side.gCost[next] + other.gCost[next] < best) {
+                    best = side.gCost[next] + other.gCost[next];
+                    meeting = next;
+                }
+            }
+        }
+
+        if (meeting == NONE)
+            return NO_PATH;
+
+        pathCost = best;
+        return buildPath(start, target, meeting);
+    }
+
+    /**
+     * Fills cells with neighbours in order left, right, up, down.
+     *
+     * @return number of neighbours
+     */
+    private int neighbors(int cell, int[] cells) {
+        int x = cell % width;
+        int y = cell / width;
+        int count = 0;
+
+        if (x > 0)
+            cells[count++] = cell - 1;
+        if (x < width - 1)
+            cells[count++] = cell + 1;
+        if (y > 0)
+            cells[count++] = cell - width;
+        if (y < height - 1)
+            cells[count++] = cell + width;
+
+        return count;
+    }
+
+    /**
+     * @return lower bound on the cost from cell to goal
+     */
+    private int h(int cell, int goal) {
+        int dx = Math.abs(cell % width - goal % width);
+        int dy = Math.abs(cell / width - goal / width);
+
+        return (dx + dy) * (MOVE_COST + minCost);
+    }
+
+    private int computeMinCost() {
+        int min = Integer.MAX_VALUE;
+
+        for (int i = 0; i < cost.length; i++) {
+            if (walkable[i])
+                min = Math.min(min, cost[i]);
+        }
+
+        return min == Integer.MAX_VALUE ? 0 : min;
+    }
+
+    private void nextGeneration() {
+        generation++;
+
+        // on overflow old stamps could match again
+        if (generation == Integer.MAX_VALUE) {
+            forward.reset();
+
+            if (backward != null)
+                backward.reset();
+
+            generation = 1;
+        }
+    }
+
+    /**
+     * @param meeting cell where forward and backward searches met, or NONE if there was no backward search
+     */
+    private int[] buildPath(int start, int target, int meeting) {
+        int middle = meeting == NONE ? target : meeting;
+
+        int forwardLength = 0;
+        for (int cell = middle; cell != start; cell = forward.parent[cell])
+            forwardLength++;
+
+        int length = forwardLength;
+
+        if (meeting != NONE) {
+            for (int cell = meeting; cell != target; cell = backward.parent[cell])
+                length++;
+        }
+
+        int[] path = new int[length * 2];
+
+        int i = forwardLength * 2;
+        for (int cell = middle; cell != start; cell = forward.parent[cell]) {
+            path[--i] = cell / width;
+            path[--i] = cell % width;
+        }
+
+        if (meeting != NONE) {
+            i = forwardLength * 2;
+            for (int cell = backward.parent[meeting]; cell != NONE; cell = backward.parent[cell]) {
+                path[i++] = cell % width;
+                path[i++] = cell / width;
+            }
+        }
+
+        return path;
+    }
+
+    /**
+     * Per-direction search state: costs, parents, open / closed stamps and the open heap.
+     */
+    private final class Frontier {
+
+        private final int[] gCost;
+        private final int[] parent;
+
+        /**
+         * Generation in which each cell was last opened / closed, a cell is in the current search
+         * only if its stamp equals generation.
+         */
+        private final int[] opened;
+        private final int[] closed;
+
+        /**
+         * Open cells by F cost, of equal F costs the cell opened first is expanded first.
+         */
+        private final IndexedHeap open;
+
+        Frontier(int size) {
+            gCost = new int[size];
+            parent = new int[size];
+            opened = new int[size];
+            closed = new int[size];
+            open = new IndexedHeap(size);
+        }
+
+        void clear() {
+            open.clear();
+        }
+
+        void reset() {
+            Arrays.fill(opened, 0);
+            Arrays.fill(closed, 0);
+        }
+
+        boolean isEmpty() {
+            return open.isEmpty();
+        }
+
+        int size() {
+            return open.size();
+        }
+
+        boolean isReached(int cell) {
+            return opened[cell] == generation;
+        }
+
+        boolean isClosed(int cell) {
+            return closed[cell] == generation;
+        }
+
+        int minF() {
+            return (int) open.minKey();
+        }
+
+        void open(int cell, int g, int from, int f) {
+            opened[cell] = generation;
+            gCost[cell] = g;
+            parent[cell] = from;
+
+            open.push(cell, f);
+        }
+
+        /**
+         * Opens cell, or lowers its cost if g is better than known.
+         */
+        void relax(int cell, int g, int from, int f) {
+            if (!isReached(cell)) {
+                open(cell, g, from, f);
+            } else if (g < gCost[cell]) {
+                gCost[cell] = g;
+                parent[cell] = from;
+
+                open.decreaseKey(cell, f);
+            }
+        }
+
+        /**
+         * Removes the cell with min F cost and closes it.
+         */
+        int poll() {
+            int top = open.poll();
+
+            closed[top] = generation;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package icurves.algorithm.astar;
+
+/**
+ * Binary min heap of items 0 until capacity with double keys and decrease-key.
+ * Of equal keys the item pushed first is polled first, so searches are deterministic.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+final class IndexedHeap {
+
+    private final int[] heap;
+    private int size;
+
+    /**
+     * Position of each item in heap, only valid while the item is in the heap.
+     */
+    private final int[] heapIndex;
+
+    private final double[] key;
+
+    /**
+     * Push order of each item, breaks ties between equal keys.
+     */
+    private final int[] order;
+    private int pushed;
+
+    IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        heapIndex = new int[capacity];
+        key = new double[capacity];
+        order = new int[capacity];
+    }
+
+    void clear() {
+        size = 0;
+        pushed = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return min key, the heap must not be empty
+     */
+    double minKey() {
+        return key[heap[0]];
+    }
+
+    /**
+     * @param item item that is not in the heap
+     */
+    void push(int item, double key) {
+        this.key[item] = key;
+        order[item] = pushed++;
+        heap[size] = item;
+        heapIndex[item] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    /**
+     * @param item item in the heap
+     * @param key key no greater than the current one
+     */
+    void decreaseKey(int item, double key) {
+        this.key[item] = key;
+        siftUp(heapIndex[item]);
+    }
+
+    /**
+     * Removes the item with min key.
+     */
+    int poll() {
+        int top = heap[0];
+
+        size--;
+        if (size > 0) {
+            move(heap[size], 0);
+            siftDown(0);
+        }
+
+        return top;
+    }
+
+    private boolean less(int item1, int item2) {
+        return key[item1] < key[item2] || (key[item1] == key[item2] && order[item1] < order[item2]);
+    }
+
+    private void siftUp(int i) {
+        int item = heap[i];
+
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (!less(item, heap[p]))
+                break;
+
+            move(heap[p], i);
+            i = p;
+        }
+
+        move(item, i);
+    }
+
+    private void siftDown(int i) {
+        int item = heap[i];
+
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+
+            if (child + 1 < size && less(heap[child + 1], heap[child]))
+                child++;
+
+            if (!less(heap[child], item))
+                break;
+
+            move(heap[child], i);
+            i = child;
+        }
+
+        move(item, i);
+    }
+
+    private void move(int item, int i) {
+        heap[i] = item;
+        heapIndex[item] = i;
+    }
+}
@@ -0,0 +1,502 @@
+package icurves.algorithm.astar;
+
+import icurves.geometry.CoordinateList;
+import icurves.geometry.RingPolygon;
+import icurves.geometry.SegmentRTree;
+import icurves.geometry.SlabLocator;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Quadtree navigation mesh over a polygon: cells are split while they are near the boundary,
+ * so they are fine along the boundary and in narrow necks, and coarse in open interiors.
+ * Leaves inside the polygon and at least clearance away from its boundary are walkable.
+ * Paths are found by Theta*, i.e. A* over walkable leaves that share a side where a leaf may take
+ * the parent of its predecessor as its own parent if the two see each other, and then string-pulled,
+ * so they have few vertices and are not bound to cell centers.
+ * Path ends that are not in a walkable leaf, e.g. closer than clearance to the boundary in a narrow neck,
+ * are joined to the nearest walkable leaf.
+ * The number of cells grows with boundary length over min cell size, not with the bounding box area.
+ * Leaf sides are multiples of the min cell size, cell coordinates below are in min cells.
+ * Not thread-safe, each thread needs its own instance.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public final class NavQuadtree {
+
+    private static final int NONE = -1;
+    private static final double[] NO_PATH = new double[0];
+
+    private final double originX, originY;
+    private final double cellSize;
+
+    /**
+     * Root side in min cells, a power of 2.
+     */
+    private final int rootSize;
+
+    private final double clearance;
+
+    private final SegmentRTree<Object> boundary;
+    private final SlabLocator<Object> locator;
+
+    // tree nodes, children of a node are 4 consecutive nodes
+
+    private int numNodes = 0;
+    private int[] nodeX = new int[64];
+    private int[] nodeY = new int[64];
+    private int[] nodeSize = new int[64];
+    private int[] nodeChild = new int[64];
+
+    /**
+     * Walkable leaf of each node, or NONE.
+     */
+    private int[] nodeLeaf = new int[64];
+
+    // walkable leaves
+
+    private int numLeaves = 0;
+    private int[] leafNode = new int[64];
+    private double[] leafDistance = new double[64];
+
+    private final int[] cost;
+
+    /**
+     * Neighbours of leaf i are adjacent[adjacentStart[i]] until adjacent[adjacentStart[i + 1]].
+     */
+    private final int[] adjacentStart;
+    private final int[] adjacent;
+
+    // search state
+
+    private final double[] gCost;
+    private final int[] parent;
+    private final int[] opened;
+    private final int[] closed;
+    private int generation = 0;
+    private final IndexedHeap open;
+
+    private int expanded = 0;
+
+    private int start, target;
+
+    /**
+     * Path vertices of start and target leaves, the search ends themselves or centers of leaves they were joined to.
+     */
+    private double startX, startY, targetX, targetY;
+
+    /**
+     * @param polygon walkable area
+     * @param cellSize min cell side
+     * @param clearance min distance from centers of walkable cells to the polygon boundary
+     */
+    public NavQuadtree(RingPolygon polygon, double cellSize, double clearance) {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+
+        this.cellSize = cellSize;
+        this.clearance = clearance;
+
+        originX = polygon.getMinX();
+        originY = polygon.getMinY();
+
+        double extent = Math.max(polygon.getMaxX() - originX, polygon.getMaxY() - originY);
+
+        int size = 1;
+        while (size * cellSize < extent)
+            size *= 2;
+
+        rootSize = size;
+
+        boundary = new SegmentRTree<>(Collections.singletonList(polygon), Collections.singletonList(polygon));
+        locator = new SlabLocator<>(Collections.singletonList(polygon), Collections.singletonList(polygon));
+
+        int root = allocate(1);
+        build(root, 0, 0, rootSize);
+
+        cost = new int[numLeaves];
+
+        // adjacency, each shared side is found from the leaf on its left / top
+        int[] pairs = new int[16];
+        int numPairs = 0;
+
+        for (int leaf = 0; leaf < numLeaves; leaf++) {
+            int node = leafNode[leaf];
+            int x = nodeX[node], y = nodeY[node], s = nodeSize[node];
+
+            for (int side = 0; side < 2; side++) {
+                for (int i = 0; i < s; ) {
+                    int nx = side == 0 ? x + s : x + i;
+                    int ny = side == 0 ? y + i : y + s;
+
+                    if (nx >= rootSize || ny >= rootSize)
+                        break;
+
+                    int other = find(nx, ny);
+
+                    if (nodeLeaf[other] != NONE) {
+                        if (numPairs + 2 > pairs.length)
+                            pairs = Arrays.copyOf(pairs, pairs.length * 2);
+
+                        pairs[numPairs++] = leaf;
+                        pairs[numPairs++] = nodeLeaf[other];
+                    }
+
+                    // skip the rest of the side covered by the same node
+                    i = side == 0 ? nodeY[other] + nodeSize[other] - y : nodeX[other] + nodeSize[other] - x;
+                }
+            }
+        }
+
+        adjacentStart = new int[numLeaves + 1];
+        for (int i = 0; i < numPairs; i++)
+            adjacentStart[pairs[i] + 1]++;
+
+        for (int i = 0; i < numLeaves; i++)
+            adjacentStart[i + 1] += adjacentStart[i];
+
+        adjacent = new int[numPairs];
+        int[] fill = Arrays.copyOf(adjacentStart, numLeaves);
+
+        for (int i = 0; i < numPairs; i += 2) {
+            adjacent[fill[pairs[i]]++] = pairs[i + 1];
+            adjacent[fill[pairs[i + 1]]++] = pairs[i];
+        }
+
+        gCost = new double[numLeaves];
+        parent = new int[numLeaves];
+        opened = new int[numLeaves];
+        closed = new int[numLeaves];
+        open = new IndexedHeap(numLeaves);
+    }
+
+    /**
+     * A cell is split while some point of it may be closer than clearance to the boundary.
+     */
+    private void build(int node, int x, int y, int size) {
+        nodeX[node] = x;
+        nodeY[node] = y;
+        nodeSize[node] = size;
+        nodeChild[node] = NONE;
+        nodeLeaf[node] = NONE;
+
+        double cx = originX + (x + size / 2.0) * cellSize;
+        double cy = originY + (y + size / 2.0) * cellSize;
+
+        double distance = boundary.distance(cx, cy);
+        double halfDiagonal = size * cellSize * Math.sqrt(0.5);
+
+        if (size > 1 && distance <= halfDiagonal + clearance) {
+            int child = allocate(4);
+            nodeChild[node] = child;
+
+            int half = size / 2;
+            build(child, x, y, half);
+            build(child + 1, x + half, y, half);
+            build(child + 2, x, y + half, half);
+            build(child + 3, x + half, y + half, half);
+            return;
+        }
+
+        if (distance >= clearance && locator.locate(cx, cy) != null) {
+            nodeLeaf[node] = addLeaf(node, distance);
+        }
+    }
+
+    private int allocate(int count) {
+        if (numNodes + count > nodeX.length) {
+            int capacity = Math.max(nodeX.length * 2, numNodes + count);
+
+            nodeX = Arrays.copyOf(nodeX, capacity);
+            nodeY = Arrays.copyOf(nodeY, capacity);
+            nodeSize = Arrays.copyOf(nodeSize, capacity);
+            nodeChild = Arrays.copyOf(nodeChild, capacity);
+            nodeLeaf = Arrays.copyOf(nodeLeaf, capacity);
+        }
+
+        int first = numNodes;
+        numNodes += count;
+        return first;
+    }
+
+    private int addLeaf(int node, double distance) {
+        if (numLeaves == leafNode.length) {
+            leafNode = Arrays.copyOf(leafNode, numLeaves * 2);
+            leafDistance = Arrays.copyOf(leafDistance, numLeaves * 2);
+        }
+
+        leafNode[numLeaves] = node;
+        leafDistance[numLeaves] = distance;
+        return numLeaves++;
+    }
+
+    /**
+     * @return leaf node containing min cell x, y
+     */
+    private int find(int x, int y) {
+        int node = 0;
+
+        while (nodeChild[node] != NONE) {
+            int half = nodeSize[node] / 2;
+            int child = nodeChild[node];
+
+            if (x >= nodeX[node] + half)
+                child += 1;
+            if (y >= nodeY[node] + half)
+                child += 2;
+
+            node = child;
+        }
+
+        return node;
+    }
+
+    /**
+     * @return walkable leaf containing point x, y, or -1 if there is none
+     */
+    public int leafAt(double x, double y) {
+        int cx = (int) Math.floor((x - originX) / cellSize);
+        int cy = (int) Math.floor((y - originY) / cellSize);
+
+        if (cx < 0 || cy < 0 || cx >= rootSize || cy >= rootSize)
+            return NONE;
+
+        return nodeLeaf[find(cx, cy)];
+    }
+
+    /**
+     * @return walkable leaf nearest to point x, y, or -1 if there are no walkable leaves
+     */
+    public int nearestLeaf(double x, double y) {
+        int leaf = leafAt(x, y);
+        if (leaf != NONE)
+            return leaf;
+
+        double min = Double.POSITIVE_INFINITY;
+
+        for (int i = 0; i < numLeaves; i++) {
+            double half = nodeSize[leafNode[i]] * cellSize / 2;
+            double dx = Math.max(0, Math.abs(x - centerX(i)) - half);
+            double dy = Math.max(0, Math.abs(y - centerY(i)) - half);
+            double distanceSq = dx * dx + dy * dy;
+
+            if (distanceSq < min) {
+                min = distanceSq;
+                leaf = i;
+            }
+        }
+
+        return leaf;
+    }
+
+    public int numLeaves() {
+        return numLeaves;
+    }
+
+    /**
+     * @return distance from center of leaf to the polygon boundary
+     */
+    public double distance(int leaf) {
+        return leafDistance[leaf];
+    }
+
+    public double centerX(int leaf) {
+        int node = leafNode[leaf];
+        return originX + (nodeX[node] + nodeSize[node] / 2.0) * cellSize;
+    }
+
+    public double centerY(int leaf) {
+        int node = leafNode[leaf];
+        return originY + (nodeY[node] + nodeSize[node] / 2.0) * cellSize;
+    }
+
+    /**
+     * A step costs ({@link GridAStar#MOVE_COST} + leaf cost) per min cell of its length,
+     * the same as a uniform grid of min cells would.
+     *
+     * @param cost non-negative extra cost of entering leaf
+     */
+    public void setCost(int leaf, int cost) {
+        if (cost < 0)
+            throw new IllegalArgumentException("Cost cannot be negative: " + cost);
+
+        this.cost[leaf] = cost;
+    }
+
+    /**
+     * @return number of leaves expanded by the last search
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * @return true if segment x1, y1 - x2, y2 stays at least clearance away from the polygon boundary
+     */
+    public boolean lineOfSight(double x1, double y1, double x2, double y2) {
+        return boundary.distance(x1, y1, x2, y2) >= clearance;
+    }
+
+    /**
+     * Start and target that are not in walkable leaves are joined to the nearest ones by straight segments.
+     *
+     * @return packed path vertices after start up to and including target,
+     * or an empty array if there is no path
+     */
+    public double[] findPath(double startX, double startY, double targetX, double targetY) {
+        expanded = 0;
+
+        int start = nearestLeaf(startX, startY);
+        int target = nearestLeaf(targetX, targetY);
+
+        if (start == NONE || target == NONE)
+            return NO_PATH;
+
+        boolean startJoined = leafAt(startX, startY) == NONE;
+        boolean targetJoined = leafAt(targetX, targetY) == NONE;
+
+        this.start = start;
+        this.target = target;
+        this.startX = startJoined ? centerX(start) : startX;
+        this.startY = startJoined ? centerY(start) : startY;
+        this.targetX = targetJoined ? centerX(target) : targetX;
+        this.targetY = targetJoined ? centerY(target) : targetY;
+
+        CoordinateList path = new CoordinateList();
+
+        if (startJoined)
+            path.add(this.startX, this.startY);
+
+        if (start != target) {
+            double[] inner = search();
+            if (inner.length == 0)
+                return NO_PATH;
+
+            for (int i = 0; i < inner.length; i += 2)
+                path.add(inner[i], inner[i + 1]);
+        } else if (targetJoined && !startJoined) {
+            path.add(this.targetX, this.targetY);
+        }
+
+        // inner path ends at the target leaf center if target was joined, else at target itself
+        if (targetJoined || start == target)
+            path.add(targetX, targetY);
+
+        return path.toArray();
+    }
+
+    /**
+     * @return packed path vertices after start leaf up to and including target leaf, or an empty array if there is none
+     */
+    private double[] search() {
+        int minCost = Integer.MAX_VALUE;
+        for (int c : cost)
+            minCost = Math.min(minCost, c);
+
+        // cheapest cost per min cell of distance, so the heuristic is admissible
+        double minStep = GridAStar.MOVE_COST + minCost;
+
+        generation++;
+        open.clear();
+
+        opened[start] = generation;
+        gCost[start] = 0;
+        parent[start] = NONE;
+        open.push(start, h(start, minStep));
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            closed[current] = generation;
+            expanded++;
+
+            if (current == target)
+                return buildPath();
+
+            int grandParent = parent[current];
+
+            for (int i = adjacentStart[current]; i < adjacentStart[current + 1]; i++) {
+                int next = adjacent[i];
+
+                if (closed[next] == generation)
+                    continue;
+
+                int from = grandParent != NONE && lineOfSight(x(grandParent), y(grandParent), x(next), y(next))
+                        ? grandParent
+                        : current;
+
+                double g = gCost[from] + stepCost(from, next);
+
+                if (opened[next] != generation) {
+                    opened[next] = generation;
+                    gCost[next] = g;
+                    parent[next] = from;
+                    open.push(next, g + h(next, minStep));
+                } else if (g < gCost[next]) {
+                    gCost[next] = g;
+                    parent[next] = from;
+                    open.decreaseKey(next, g + h(next, minStep));
+                }
+            }
+        }
+
+        return NO_PATH;
+    }
+
+    /**
+     * @return path vertex of leaf, search start and target are used instead of centers of their leaves
+     */
+    private double x(int leaf) {
+        return leaf == start ? startX : leaf == target ? targetX : centerX(leaf);
+    }
+
+    private double y(int leaf) {
+        return leaf == start ? startY : leaf == target ? targetY : centerY(leaf);
+    }
+
+    /**
+     * Cost of a straight step, with leaf cost along it taken as the mean of its ends.
+     */
+    private double stepCost(int leaf1, int leaf2) {
+        return length(leaf1, leaf2) * (GridAStar.MOVE_COST + (cost[leaf1] + cost[leaf2]) / 2.0);
+    }
+
+    /**
+     * @return distance between path vertices of leaves in min cells
+     */
+    private double length(int leaf1, int leaf2) {
+        return Math.hypot(x(leaf1) - x(leaf2), y(leaf1) - y(leaf2)) / cellSize;
+    }
+
+    private double h(int leaf, double minStep) {
+        return length(leaf, target) * minStep;
+    }
+
+    /**
+     * Drops every vertex whose neighbours in the path see each other.
+     */
+    private double[] buildPath() {
+        CoordinateList reversed = new CoordinateList();
+
+        for (int leaf = target; leaf != NONE; leaf = parent[leaf])
+            reversed.add(x(leaf), y(leaf));
+
+        int n = reversed.size();
+
+        CoordinateList path = new CoordinateList();
+
+        int anchor = n - 1;
+        while (anchor > 0) {
+            int next = anchor - 1;
+
+            while (next > 0 && lineOfSight(reversed.getX(anchor), reversed.getY(anchor),
+                    reversed.getX(next - 1), reversed.getY(next - 1)))
+                next--;
+
+            path.add(reversed.getX(next), reversed.getY(next));
+            anchor = next;
+        }
+
+        return path.toArray();
+    }
+}
@@ -1,10 +0,0 @@
-package icurves.algorithm.astar;
-
-/**
- * Node state.
- *
- * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
- */
-public enum NodeState {
-    WALKABLE, NOT_WALKABLE
-}
@@ -43,9 +43,11 @@ public class BasicDecomposer implements Decomposer {
             }
         }
 
-        log.info("Decomposition begin");
-        result.forEach(log::info);
-        log.info("Decomposition end");
+        if (log.isDebugEnabled()) {
+            log.debug("Decomposition begin");
+            result.forEach(log::debug);
+            log.debug("Decomposition end");
+        }
 
         return result;
     }
@@ -0,0 +1,71 @@
+package icurves.geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Arrangement of closed curves clipped to a bounding polygon.
+ * All curves are overlaid in a single plane sweep, so every face
+ * (i.e. basic region) is produced at once in O((n + k) log n),
+ * where n is the number of curve vertices and k is the number of crossings.
+ *
+ * Each face is identified by its label, a bit set of curves containing it:
+ * bit i is set if the face is inside curves.get(i).
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class Arrangement {
+
+    /**
+     * Max number of curves, one operand is taken by the bounding polygon.
+     */
+    public static final int MAX_CURVES = 63;
+
+    private final Map<Long, RingPolygon> faces;
+
+    /**
+     * @param curves curve polygons
+     * @param bounds area to clip the arrangement to
+     */
+    public Arrangement(List<RingPolygon> curves, RingPolygon bounds) {
+        if (curves.size() > MAX_CURVES)
+            throw new IllegalArgumentException("At most " + MAX_CURVES + " curves are supported: " + curves.size());
+
+        List<RingPolygon> operands = new ArrayList<>(curves);
+        operands.add(bounds);
+
+        long boundsBit = 1L << curves.size();
+
+        SweepOverlay overlay = new SweepOverlay(operands);
+        overlay.sweep(bounds.getMaxX());
+
+        Map<Long, RingPolygon> faces = new HashMap<>();
+
+        overlay.extractFaces().forEach((label, rings) -> {
+            if ((label & boundsBit) != 0) {
+                faces.put(label & ~boundsBit, new RingPolygon(rings));
+            }
+        });
+
+        this.faces = Collections.unmodifiableMap(faces);
+    }
+
+    /**
+     * @param label bit set of curves containing the face
+     * @return the face or an empty polygon if there is no such face
+     */
+    public RingPolygon getFace(long label) {
+        return faces.getOrDefault(label, RingPolygon.EMPTY);
+    }
+
+    /**
+     * @return labels of all nonempty faces
+     */
+    public Set<Long> getLabels() {
+        return faces.keySet();
+    }
+}
@@ -0,0 +1,80 @@
+package icurves.geometry;
+
+/**
+ * Approximates Bezier curves by polylines using recursive (de Casteljau) subdivision.
+ * A piece is split until its control points are within a tolerance of its chord,
+ * so straight runs get few vertices and tight bends get many.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class BezierFlattener {
+
+    /**
+     * Max subdivision depth, i.e. at most 2^MAX_DEPTH pieces per curve.
+     */
+    private static final int MAX_DEPTH = 16;
+
+    private BezierFlattener() {}
+
+    /**
+     * Appends vertices of the quadratic curve x0, y0 - x2, y2 with control point x1, y1 to given list,
+     * excluding the start point.
+     *
+     * @param tolerance max distance between the curve and the polyline
+     */
+    public static void flattenQuad(double x0, double y0, double x1, double y1, double x2, double y2,
+                                   double tolerance, CoordinateList out) {
+
+        // a quad is a cubic with control points 2/3 of the way towards the quad control point
+        flattenCubic(x0, y0,
+                x0 + 2.0 / 3 * (x1 - x0), y0 + 2.0 / 3 * (y1 - y0),
+                x2 + 2.0 / 3 * (x1 - x2), y2 + 2.0 / 3 * (y1 - y2),
+                x2, y2, tolerance, out);
+    }
+
+    /**
+     * Appends vertices of the cubic curve x0, y0 - x3, y3 with control points x1, y1 and x2, y2 to given list,
+     * excluding the start point.
+     *
+     * @param tolerance max distance between the curve and the polyline
+     */
+    public static void flattenCubic(double x0, double y0, double x1, double y1,
+                                    double x2, double y2, double x3, double y3,
+                                    double tolerance, CoordinateList out) {
+
+        subdivide(x0, y0, x1, y1, x2, y2, x3, y3, tolerance * tolerance, 0, out);
+    }
+
+    private static void subdivide(double x0, double y0, double x1, double y1,
+                                  double x2, double y2, double x3, double y3,
+                                  double toleranceSq, int depth, CoordinateList out) {
+
+        if (depth == MAX_DEPTH || isFlat(x0, y0, x1, y1, x2, y2, x3, y3, toleranceSq)) {
+            out.add(x3, y3);
+            return;
+        }
+
+        double x01 = (x0 + x1) / 2, y01 = (y0 + y1) / 2;
+        double x12 = (x1 + x2) / 2, y12 = (y1 + y2) / 2;
+        double x23 = (x2 + x3) / 2, y23 = (y2 + y3) / 2;
+
+        double x012 = (x01 + x12) / 2, y012 = (y01 + y12) / 2;
+        double x123 = (x12 + x23) / 2, y123 = (y12 + y23) / 2;
+
+        double xm = (x012 + x123) / 2, ym = (y012 + y123) / 2;
+
+        subdivide(x0, y0, x01, y01, x012, y012, xm, ym, toleranceSq, depth + 1, out);
+        subdivide(xm, ym, x123, y123, x23, y23, x3, y3, toleranceSq, depth + 1, out);
+    }
+
+    /**
+     * The curve lies in the convex hull of its control points,
+     * so it is within tolerance of the chord if both inner control points are.
+     */
+    private static boolean isFlat(double x0, double y0, double x1, double y1,
+                                  double x2, double y2, double x3, double y3, double toleranceSq) {
+
+        return Segments.distanceSq(x1, y1, x0, y0, x3, y3) <= toleranceSq
+                && Segments.distanceSq(x2, y2, x0, y0, x3, y3) <= toleranceSq;
+    }
+}
@@ -0,0 +1,67 @@
+package icurves.geometry;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of packed x, y coordinates.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class CoordinateList {
+
+    private double[] data;
+
+    /**
+     * Number of used doubles, i.e. 2 * number of points.
+     */
+    private int length = 0;
+
+    public CoordinateList() {
+        this(16);
+    }
+
+    /**
+     * @param capacity initial capacity in points
+     */
+    public CoordinateList(int capacity) {
+        data = new double[Math.max(2, capacity * 2)];
+    }
+
+    public void add(double x, double y) {
+        if (length + 2 > data.length)
+            data = Arrays.copyOf(data, data.length * 2);
+
+        data[length++] = x;
+        data[length++] = y;
+    }
+
+    /**
+     * @return number of points
+     */
+    public int size() {
+        return length / 2;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public double getX(int index) {
+        return data[2 * index];
+    }
+
+    public double getY(int index) {
+        return data[2 * index + 1];
+    }
+
+    public void clear() {
+        length = 0;
+    }
+
+    /**
+     * @return packed coordinates as a new array
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(data, length);
+    }
+}
@@ -0,0 +1,254 @@
+package icurves.geometry;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Raster of the union of polygons over a grid of square cells, with distances from cell centers to the union boundary.
+ * Cells are filled by scanlines at cell center y, and distances come from the exact Euclidean distance transform
+ * of Felzenszwalb and Huttenlocher, both linear in the number of cells (plus edge crossings),
+ * so there are no per-cell polygon queries.
+ * Immutable once built, so it can be queried from several threads.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class DistanceField {
+
+    /**
+     * Cells added on each side of the grid, so that the boundary beyond the grid is seen by the transform.
+     */
+    private static final int PADDING = 2;
+
+    /**
+     * Finite stand-in for infinity, so that the transform does not compute infinity - infinity.
+     */
+    private static final double FAR = 1e20;
+
+    private final double cellSize;
+    private final int cols, rows;
+
+    /**
+     * Size of the padded raster.
+     */
+    private final int width, height;
+
+    private final boolean[] inside;
+
+    /**
+     * Squared distance in cells from each cell center to the nearest center of a cell outside the union.
+     */
+    private final double[] distanceSq;
+
+    /**
+     * Cell col, row has center minX + (col + 0.5) * cellSize, minY + (row + 0.5) * cellSize.
+     *
+     * @param polygons polygons with disjoint interiors
+     */
+    public DistanceField(List<RingPolygon> polygons, double minX, double minY, double cellSize, int cols, int rows) {
+        if (cellSize <= 0 || cols < 1 || rows < 1)
+            throw new IllegalArgumentException("Bad grid: " + cols + "x" + rows + " of " + cellSize);
+
+        this.cellSize = cellSize;
+        this.cols = cols;
+        this.rows = rows;
+
+        width = cols + 2 * PADDING;
+        height = rows + 2 * PADDING;
+
+        inside = new boolean[width * height];
+
+        double originX = minX - PADDING * cellSize;
+        double originY = minY - PADDING * cellSize;
+
+        for (RingPolygon polygon : polygons) {
+            fill(polygon, originX, originY);
+        }
+
+        distanceSq = new double[width * height];
+        for (int i = 0; i < inside.length; i++) {
+            distanceSq[i] = inside[i] ? FAR : 0;
+        }
+
+        transform();
+    }
+
+    /**
+     * Even-odd fill of cells whose centers lie inside polygon.
+     * Edge crossings are bucketed by row first, so each edge is only visited for the rows it spans.
+     */
+    private void fill(RingPolygon polygon, double originX, double originY) {
+        int[] rowStart = new int[height + 1];
+
+        // first pass counts crossings per row, second fills them in
+        for (int pass = 0; pass < 2; pass++) {
+            double[] crossings = pass == 0 ? null : new double[rowStart[height]];
+            int[] fill = pass == 0 ? null : Arrays.copyOf(rowStart, height);
+
+            for (int r = 0; r < polygon.numRings(); r++) {
+                double[] ring = polygon.ring(r);
+                int n = ring.length;
+
+                for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+                    double x1 = ring[j], y1 = ring[j + 1];
+                    double x2 = ring[i], y2 = ring[i + 1];
+
+                    // rows whose center y is in [min y, max y)
+                    int first = Math.max(0, firstCenter(Math.min(y1, y2), originY));
+                    int last = Math.min(height, firstCenter(Math.max(y1, y2), originY));
+
+                    for (int row = first; row < last; row++) {
+                        if (pass == 0) {
+                            rowStart[row + 1]++;
+                        } else {
+                            double y = originY + (row + 0.5) * cellSize;
+                            crossings[fill[row]++] = x1 + (y - y1) * (x2 - x1) / (y2 - y1);
+                        }
+                    }
+                }
+            }
+
+            if (pass == 0) {
+                for (int row = 0; row < height; row++) {
+                    rowStart[row + 1] += rowStart[row];
+                }
+                continue;
+            }
+
+            for (int row = 0; row < height; row++) {
+                Arrays.sort(crossings, rowStart[row], rowStart[row + 1]);
+
+                for (int k = rowStart[row]; k + 1 < rowStart[row + 1]; k += 2) {
+                    int from = Math.max(0, firstCenter(crossings[k], originX));
+                    int to = Math.min(width, firstCenter(crossings[k + 1], originX));
+
+                    for (int col = from; col < to; col++) {
+                        inside[row * width + col] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return index of the first cell whose center is at or after value
+     */
+    private int firstCenter(double value, double origin) {
+        return (int) Math.ceil((value - origin) / cellSize - 0.5);
+    }
+
+    /**
+     * Runs the 1D transform down each column, then along each row.
+     */
+    private void transform() {
+        int n = Math.max(width, height);
+
+        double[] f = new double[n];
+        double[] d = new double[n];
+        int[] v = new int[n];
+        double[] z = new double[n + 1];
+
+        for (int col = 0; col < width; col++) {
+            for (int row = 0; row < height; row++)
+                f[row] = distanceSq[row * width + col];
+
+            transform1D(f, height, d, v, z);
+
+            for (int row = 0; row < height; row++)
+                distanceSq[row * width + col] = d[row];
+        }
+
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(distanceSq, row * width, f, 0, width);
+
+            transform1D(f, width, d, v, z);
+
+            System.arraycopy(d, 0, distanceSq, row * width, width);
+        }
+    }
+
+    /**
+     * Lower envelope of parabolas rooted at each sample.
+     *
+     * @param f sampled function
+     * @param d output, d[q] = min over p of (q - p)^2 + f[p]
+     * @param v locations of parabolas in the envelope
+     * @param z boundaries between envelope parabolas
+     */
+    static void transform1D(double[] f, int n, double[] d, int[] v, double[] z) {
+        int k = 0;
+        v[0] = 0;
+        z[0] = Double.NEGATIVE_INFINITY;
+        z[1] = Double.POSITIVE_INFINITY;
+
+        for (int q = 1; q < n; q++) {
+            double s = intersection(f, q, v[k]);
+
+            while (s <= z[k]) {
+                k--;
+                s = intersection(f, q, v[k]);
+            }
+
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Double.POSITIVE_INFINITY;
+        }
+
+        k = 0;
+        for (int q = 0; q < n; q++) {
+            while (z[k + 1] < q)
+                k++;
+
+            d[q] = (double) (q - v[k]) * (q - v[k]) + f[v[k]];
+        }
+    }
+
+    /**
+     * @return x where parabolas rooted at q and p intersect
+     */
+    private static double intersection(double[] f, int q, int p) {
+        return ((f[q] + (double) q * q) - (f[p] + (double) p * p)) / (2.0 * q - 2.0 * p);
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return true if center of cell col, row is inside the union, false for cells out of the grid
+     */
+    public boolean isInside(int col, int row) {
+        int i = index(col, row);
+        return i >= 0 && inside[i];
+    }
+
+    /**
+     * The boundary lies between a cell center and the nearest outside cell center,
+     * so the distance to it is estimated as that to the outside center less half a cell.
+     *
+     * @return estimated distance from center of cell col, row to the union boundary, 0 for cells outside
+     */
+    public double distance(int col, int row) {
+        if (!isInside(col, row))
+            return 0;
+
+        return Math.max(0, (Math.sqrt(distanceSq[index(col, row)]) - 0.5) * cellSize);
+    }
+
+    /**
+     * @return index into the padded raster, or -1 if the cell is beyond the padding
+     */
+    private int index(int col, int row) {
+        int x = col + PADDING;
+        int y = row + PADDING;
+
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return -1;
+
+        return y * width + x;
+    }
+}
@@ -0,0 +1,41 @@
+package icurves.geometry;
+
+/**
+ * Fixed-point layout coordinates: a coordinate is snapped to a grid of 1 / SCALE units and kept as an integer.
+ * Both coordinates of a point fit into a single long,
+ * so points can be compared exactly.
+ * Layout coordinates stay well within +-2^31 / SCALE, i.e. about +-2 million units.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class FixedPoint {
+
+    /**
+     * Grid cells per unit.
+     */
+    public static final int SCALE = 1024;
+
+    private FixedPoint() {}
+
+    /**
+     * @return coordinate snapped to the fixed-point grid
+     * @throws ArithmeticException if the snapped coordinate does not fit into an int
+     */
+    public static int toFixed(double value) {
+        return Math.toIntExact(Math.round(value * SCALE));
+    }
+
+    /**
+     * @return point x, y snapped and packed into a long, equal for points that snap to the same grid point
+     */
+    public static long pack(double x, double y) {
+        return ((long) toFixed(x) << 32) | (toFixed(y) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return true if points snap to the same grid point
+     */
+    public static boolean samePoint(double x1, double y1, double x2, double y2) {
+        return pack(x1, y1) == pack(x2, y2);
+    }
+}
@@ -0,0 +1,81 @@
+package icurves.geometry;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Boolean operations on {@link RingPolygon}s.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class PolygonClipper {
+
+    private PolygonClipper() {}
+
+    private static final LongPredicate INTERSECTION = label -> label == 3;
+    private static final LongPredicate UNION = label -> label != 0;
+    private static final LongPredicate DIFFERENCE = label -> label == 1;
+    private static final LongPredicate XOR = label -> label == 1 || label == 2;
+
+    /**
+     * @return area covered by both a and b
+     */
+    public static RingPolygon intersection(RingPolygon a, RingPolygon b) {
+        if (!a.boundsIntersect(b))
+            return RingPolygon.EMPTY;
+
+        SweepOverlay overlay = new SweepOverlay(Arrays.asList(a, b));
+        overlay.sweep(Math.min(a.getMaxX(), b.getMaxX()));
+
+        return new RingPolygon(overlay.extract(INTERSECTION));
+    }
+
+    /**
+     * @return area covered by a but not b
+     */
+    public static RingPolygon difference(RingPolygon a, RingPolygon b) {
+        if (!a.boundsIntersect(b))
+            return a;
+
+        SweepOverlay overlay = new SweepOverlay(Arrays.asList(a, b));
+        overlay.sweep(a.getMaxX());
+
+        return new RingPolygon(overlay.extract(DIFFERENCE));
+    }
+
+    /**
+     * @return area covered by a or b
+     */
+    public static RingPolygon union(RingPolygon a, RingPolygon b) {
+        return overlay(a, b, UNION);
+    }
+
+    /**
+     * @return area covered by exactly one of a and b
+     */
+    public static RingPolygon xor(RingPolygon a, RingPolygon b) {
+        return overlay(a, b, XOR);
+    }
+
+    private static RingPolygon overlay(RingPolygon a, RingPolygon b, LongPredicate inside) {
+        SweepOverlay overlay = new SweepOverlay(Arrays.asList(a, b));
+        overlay.sweep(Double.POSITIVE_INFINITY);
+
+        return new RingPolygon(overlay.extract(inside));
+    }
+
+    /**
+     * Cheaper than computing the intersection since no rings are built.
+     *
+     * @return true if a and b share some area
+     */
+    public static boolean intersects(RingPolygon a, RingPolygon b) {
+        if (!a.boundsIntersect(b))
+            return false;
+
+        SweepOverlay overlay = new SweepOverlay(Arrays.asList(a, b));
+        overlay.sweep(Math.min(a.getMaxX(), b.getMaxX()));
+
+        return overlay.hasBoundary(INTERSECTION);
+    }
+}
@@ -0,0 +1,187 @@
+package icurves.geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Douglas-Peucker simplification of polygon rings, constrained by other curves.
+ * A run of vertices is replaced by a single edge only if the edge is within the error budget of the run,
+ * crosses the boundary of each other curve as many times as the run does,
+ * leaves no vertex of other curves between itself and the run
+ * and does not cross edges of the polygon outside the run,
+ * so that simplified curves split the same basic regions.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class PolygonSimplifier {
+
+    private PolygonSimplifier() {}
+
+    /**
+     * @param polygon polygon to simplify
+     * @param tolerance max distance between a removed vertex and the edge that replaces it
+     * @param others boundaries of other curves, tagged by curve
+     * @return simplified polygon, rings that would collapse are kept as they are
+     */
+    public static RingPolygon simplify(RingPolygon polygon, double tolerance, SegmentRTree<?> others) {
+        List<double[]> rings = new ArrayList<>(polygon.numRings());
+
+        SegmentRTree<RingPolygon> self = new SegmentRTree<>(Collections.singletonList(polygon), Collections.singletonList(polygon));
+
+        for (int r = 0; r < polygon.numRings(); r++) {
+            rings.add(simplifyRing(polygon.ring(r), tolerance, others, self));
+        }
+
+        return new RingPolygon(rings);
+    }
+
+    /**
+     * @param self boundary of the whole polygon the ring belongs to
+     */
+    private static double[] simplifyRing(double[] ring, double tolerance, SegmentRTree<?> others, SegmentRTree<?> self) {
+        int n = ring.length / 2;
+
+        // split the closed ring at vertex 0 and the vertex farthest from it,
+        // index n stands for vertex 0 again
+        int far = 0;
+        double farDistance = -1;
+
+        for (int i = 1; i < n; i++) {
+            double dx = ring[2 * i] - ring[0];
+            double dy = ring[2 * i + 1] - ring[1];
+            double distance = dx * dx + dy * dy;
+
+            if (distance > farDistance) {
+                farDistance = distance;
+                far = i;
+            }
+        }
+
+        boolean[] keep = new boolean[n + 1];
+        keep[0] = true;
+        keep[far] = true;
+        keep[n] = true;
+
+        // pending (first, last) runs
+        int[] stack = new int[2 * (n + 1)];
+        int top = 0;
+
+        stack[top++] = 0;
+        stack[top++] = far;
+        stack[top++] = far;
+        stack[top++] = n;
+
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            if (last - first < 2)
+                continue;
+
+            int farthest = first + 1;
+            double maxDistance = -1;
+
+            for (int i = first + 1; i < last; i++) {
+                int p = i % n, a = first % n, b = last % n;
+                double distance = Segments.distanceSq(ring[2 * p], ring[2 * p + 1],
+                        ring[2 * a], ring[2 * a + 1], ring[2 * b], ring[2 * b + 1]);
+
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (maxDistance <= tolerance * tolerance && canReplace(ring, first, last, others, self))
+                continue;
+
+            keep[farthest] = true;
+
+            stack[top++] = first;
+            stack[top++] = farthest;
+            stack[top++] = farthest;
+            stack[top++] = last;
+        }
+
+        CoordinateList result = new CoordinateList(n);
+
+        for (int i = 0; i < n; i++) {
+            if (keep[i])
+                result.add(ring[2 * i], ring[2 * i + 1]);
+        }
+
+        return result.size() >= 3 ? result.toArray() : ring;
+    }
+
+    /**
+     * @return true if the run first..last can be replaced by edge first - last without changing topology
+     */
+    private static boolean canReplace(double[] ring, int first, int last, SegmentRTree<?> others, SegmentRTree<?> self) {
+        int n = ring.length / 2;
+
+        double[] run = new double[2 * (last - first + 1)];
+        for (int i = first; i <= last; i++) {
+            run[2 * (i - first)] = ring[2 * (i % n)];
+            run[2 * (i - first) + 1] = ring[2 * (i % n) + 1];
+        }
+
+        return sameCrossings(run, others) && !enclosesOther(run, others) && !crossesOutsideRun(ring, first, last, self);
+    }
+
+    /**
+     * @param run packed coordinates of the run
+     * @return true if the edge from first to last vertex of run crosses other curves as many times as run does
+     */
+    private static boolean sameCrossings(double[] run, SegmentRTree<?> others) {
+        return others.crossings(run).equals(others.crossings(run[0], run[1], run[run.length - 2], run[run.length - 1]));
+    }
+
+    /**
+     * With equal crossings, another curve can still lie in the area between the run and the edge replacing it,
+     * which would then move to the other side of this curve.
+     * Such a curve has a vertex in that area, unless it crosses the run or the edge.
+     *
+     * @param run packed coordinates of the run
+     * @return true if the run closed by the edge from its last to its first vertex contains a vertex of other curves
+     */
+    private static boolean enclosesOther(double[] run, SegmentRTree<?> others) {
+        RingPolygon area = new RingPolygon(run);
+
+        if (area.isEmpty())
+            return false;
+
+        double[] vertices = others.vertices(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY());
+
+        for (int i = 0; i < vertices.length; i += 2) {
+            if (area.contains(vertices[i], vertices[i + 1]))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Edges are those of the original polygon, so this also keeps a shortcut from cutting through other rings.
+     *
+     * @return true if edge first - last properly crosses an edge of the polygon that is not in the run first..last
+     */
+    private static boolean crossesOutsideRun(double[] ring, int first, int last, SegmentRTree<?> self) {
+        int n = ring.length / 2;
+
+        double x1 = ring[2 * (first % n)], y1 = ring[2 * (first % n) + 1];
+        double x2 = ring[2 * (last % n)], y2 = ring[2 * (last % n) + 1];
+
+        // crossings of edges in the run are fine, since they are replaced
+        int inRun = 0;
+        for (int i = first; i < last; i++) {
+            int a = i % n;
+            int b = (i + 1) % n;
+
+            if (Segments.crossProperly(x1, y1, x2, y2, ring[2 * a], ring[2 * a + 1], ring[2 * b], ring[2 * b + 1]))
+                inRun++;
+        }
+
+        return self.properCrossings(x1, y1, x2, y2) > inRun;
+    }
+}
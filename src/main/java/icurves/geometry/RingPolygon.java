@@ -0,0 +1,271 @@
+package icurves.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable polygon made of one or more closed rings.
+ * Each ring is stored as packed coordinates {x0, y0, x1, y1, ...}
+ * without repeating the first vertex.
+ * The interior is defined by the even-odd rule, so holes and
+ * disjoint parts are simply additional rings.
+ *
+ * Rings produced by {@link PolygonClipper} are oriented so that the interior
+ * is always on the left of each edge (outer rings CCW, holes CW).
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class RingPolygon {
+
+    public static final RingPolygon EMPTY = new RingPolygon(Collections.emptyList());
+
+    private final double[][] rings;
+
+    private final double minX, minY, maxX, maxY;
+
+    /**
+     * Constructs a polygon from given rings.
+     * Consecutive duplicate vertices and rings with fewer than 3 vertices are dropped.
+     *
+     * @param rings packed ring coordinates
+     */
+    public RingPolygon(List<double[]> rings) {
+        List<double[]> cleaned = new ArrayList<>(rings.size());
+
+        for (double[] ring : rings) {
+            double[] r = clean(ring);
+            if (r.length >= 6)
+                cleaned.add(r);
+        }
+
+        this.rings = cleaned.toArray(new double[cleaned.size()][]);
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+        for (double[] ring : this.rings) {
+            for (int i = 0; i < ring.length; i += 2) {
+                minX = Math.min(minX, ring[i]);
+                maxX = Math.max(maxX, ring[i]);
+                minY = Math.min(minY, ring[i + 1]);
+                maxY = Math.max(maxY, ring[i + 1]);
+            }
+        }
+
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    public RingPolygon(double[]... rings) {
+        this(Arrays.asList(rings));
+    }
+
+    /**
+     * @return axis-aligned rectangle polygon
+     */
+    public static RingPolygon rectangle(double minX, double minY, double maxX, double maxY) {
+        return new RingPolygon(new double[] { minX, minY, maxX, minY, maxX, maxY, minX, maxY });
+    }
+
+    private static double[] clean(double[] ring) {
+        int n = ring.length / 2;
+        double[] result = new double[ring.length];
+        int size = 0;
+
+        for (int i = 0; i < n; i++) {
+            double x = ring[2 * i];
+            double y = ring[2 * i + 1];
+
+            if (size > 0 && result[size - 2] == x && result[size - 1] == y)
+                continue;
+
+            result[size++] = x;
+            result[size++] = y;
+        }
+
+        // drop closing vertex if it repeats the first one
+        if (size >= 4 && result[0] == result[size - 2] && result[1] == result[size - 1])
+            size -= 2;
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return number of rings
+     */
+    public int numRings() {
+        return rings.length;
+    }
+
+    /**
+     * The returned array must not be modified.
+     *
+     * @param index ring index
+     * @return packed coordinates of the ring
+     */
+    public double[] ring(int index) {
+        return rings[index];
+    }
+
+    /**
+     * @return total number of vertices in all rings
+     */
+    public int numVertices() {
+        int count = 0;
+        for (double[] ring : rings)
+            count += ring.length / 2;
+
+        return count;
+    }
+
+    /**
+     * @return true if this polygon has no rings or zero area
+     */
+    public boolean isEmpty() {
+        return rings.length == 0 || area() == 0;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return true if bounding boxes of this and other overlap (touching counts)
+     */
+    public boolean boundsIntersect(RingPolygon other) {
+        return rings.length > 0 && other.rings.length > 0
+                && minX <= other.maxX && other.minX <= maxX
+                && minY <= other.maxY && other.minY <= maxY;
+    }
+
+    /**
+     * Exact for oriented rings (e.g. results of {@link PolygonClipper})
+     * and for polygons with a single ring.
+     *
+     * @return area of the polygon
+     */
+    public double area() {
+        double sum = 0;
+        for (double[] ring : rings)
+            sum += signedArea(ring);
+
+        return Math.abs(sum);
+    }
+
+    /**
+     * @return signed area of the ring, positive if CCW (in y-up coordinates)
+     */
+    public static double signedArea(double[] ring) {
+        double sum = 0;
+        int n = ring.length;
+
+        for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+            sum += (ring[j] - ring[i]) * (ring[j + 1] + ring[i + 1]);
+        }
+
+        return sum / 2;
+    }
+
+    /**
+     * Even-odd point containment.
+     * Points on the boundary may be reported either way.
+     *
+     * @return true if point x, y is inside
+     */
+    public boolean contains(double x, double y) {
+        if (x < minX || x > maxX || y < minY || y > maxY)
+            return false;
+
+        boolean inside = false;
+
+        for (double[] ring : rings) {
+            int n = ring.length;
+
+            for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+                double yi = ring[i + 1];
+                double yj = ring[j + 1];
+
+                if ((yi > y) != (yj > y)) {
+                    double xCross = (ring[j] - ring[i]) * (y - yi) / (yj - yi) + ring[i];
+                    if (x < xCross)
+                        inside = !inside;
+                }
+            }
+        }
+
+        return inside;
+    }
+
+    /**
+     * @return this polygon moved by dx, dy
+     */
+    public RingPolygon translate(double dx, double dy) {
+        List<double[]> moved = new ArrayList<>(rings.length);
+
+        for (double[] ring : rings) {
+            double[] r = new double[ring.length];
+            for (int i = 0; i < ring.length; i += 2) {
+                r[i] = ring[i] + dx;
+                r[i + 1] = ring[i + 1] + dy;
+            }
+
+            moved.add(r);
+        }
+
+        return new RingPolygon(moved);
+    }
+
+    /**
+     * @return true if segment x1, y1 - x2, y2 touches or crosses the boundary of this polygon
+     */
+    public boolean boundaryIntersects(double x1, double y1, double x2, double y2) {
+        if (Math.max(x1, x2) < minX || Math.min(x1, x2) > maxX
+                || Math.max(y1, y2) < minY || Math.min(y1, y2) > maxY)
+            return false;
+
+        for (double[] ring : rings) {
+            int n = ring.length;
+
+            for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+                if (Segments.intersect(x1, y1, x2, y2, ring[j], ring[j + 1], ring[i], ring[i + 1]))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param polyline packed coordinates of an open polyline
+     * @return true if any segment of the polyline touches or crosses the boundary of this polygon
+     */
+    public boolean boundaryIntersects(double[] polyline) {
+        for (int i = 0; i + 3 < polyline.length; i += 2) {
+            if (boundaryIntersects(polyline[i], polyline[i + 1], polyline[i + 2], polyline[i + 3]))
+                return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "RingPolygon[rings=" + rings.length + ",vertices=" + numVertices() + "]";
+    }
+}
@@ -0,0 +1,193 @@
+package icurves.geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uniform grid over the edges of a {@link RingPolygon}, for finding edges near a given segment.
+ * Immutable once built, so it can be queried from several threads.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class SegmentIndex {
+
+    /**
+     * Max distance between segments that are considered to lie on the same line,
+     * and min length of an overlap that counts as shared boundary.
+     */
+    public static final double TOLERANCE = 1e-6;
+
+    /**
+     * Packed x1, y1, x2, y2 of each edge.
+     */
+    private final double[] segments;
+
+    private final double minX, minY, maxX, maxY;
+    private final double cellSize;
+    private final int cols, rows;
+
+    /**
+     * Indices of edges that (by bounding box) fall into each cell, row by row.
+     */
+    private final int[][] cells;
+
+    public SegmentIndex(RingPolygon polygon) {
+        segments = new double[polygon.numVertices() * 4];
+
+        int count = 0;
+        for (int r = 0; r < polygon.numRings(); r++) {
+            double[] ring = polygon.ring(r);
+            int n = ring.length;
+
+            for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+                segments[count++] = ring[j];
+                segments[count++] = ring[j + 1];
+                segments[count++] = ring[i];
+                segments[count++] = ring[i + 1];
+            }
+        }
+
+        minX = polygon.getMinX() - TOLERANCE;
+        minY = polygon.getMinY() - TOLERANCE;
+        maxX = polygon.getMaxX() + TOLERANCE;
+        maxY = polygon.getMaxY() + TOLERANCE;
+
+        // about one edge per cell
+        int size = Math.max(1, (int) Math.ceil(Math.sqrt(numSegments())));
+        cellSize = Math.max(maxX - minX, maxY - minY) / size;
+        cols = size;
+        rows = size;
+
+        List<List<Integer>> lists = new ArrayList<>(cols * rows);
+        for (int i = 0; i < cols * rows; i++) {
+            lists.add(new ArrayList<>());
+        }
+
+        for (int s = 0; s < numSegments(); s++) {
+            int c0 = col(Math.min(x1(s), x2(s)) - TOLERANCE);
+            int c1 = col(Math.max(x1(s), x2(s)) + TOLERANCE);
+            int r0 = row(Math.min(y1(s), y2(s)) - TOLERANCE);
+            int r1 = row(Math.max(y1(s), y2(s)) + TOLERANCE);
+
+            for (int row = r0; row <= r1; row++) {
+                for (int col = c0; col <= c1; col++) {
+                    lists.get(row * cols + col).add(s);
+                }
+            }
+        }
+
+        cells = new int[lists.size()][];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public int numSegments() {
+        return segments.length / 4;
+    }
+
+    private double x1(int s) {
+        return segments[s * 4];
+    }
+
+    private double y1(int s) {
+        return segments[s * 4 + 1];
+    }
+
+    private double x2(int s) {
+        return segments[s * 4 + 2];
+    }
+
+    private double y2(int s) {
+        return segments[s * 4 + 3];
+    }
+
+    private int col(double x) {
+        return clamp((int) ((x - minX) / cellSize), cols);
+    }
+
+    private int row(double y) {
+        return clamp((int) ((y - minY) / cellSize), rows);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    /**
+     * @return true if the boundary of other polygon shares a piece of positive length with indexed edges
+     */
+    public boolean sharesBoundary(RingPolygon other) {
+        if (numSegments() == 0 || other.numRings() == 0)
+            return false;
+
+        if (other.getMaxX() < minX || other.getMinX() > maxX
+                || other.getMaxY() < minY || other.getMinY() > maxY)
+            return false;
+
+        for (int r = 0; r < other.numRings(); r++) {
+            double[] ring = other.ring(r);
+            int n = ring.length;
+
+            for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+                if (sharesBoundary(ring[j], ring[j + 1], ring[i], ring[i + 1]))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if segment x1, y1 - x2, y2 overlaps some indexed edge by positive length
+     */
+    public boolean sharesBoundary(double x1, double y1, double x2, double y2) {
+        if (Math.max(x1, x2) < minX || Math.min(x1, x2) > maxX
+                || Math.max(y1, y2) < minY || Math.min(y1, y2) > maxY)
+            return false;
+
+        int c0 = col(Math.min(x1, x2));
+        int c1 = col(Math.max(x1, x2));
+        int r0 = row(Math.min(y1, y2));
+        int r1 = row(Math.max(y1, y2));
+
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                for (int s : cells[row * cols + col]) {
+                    if (overlap(x1(s), y1(s), x2(s), y2(s), x1, y1, x2, y2) > TOLERANCE)
+                        return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return length of the overlap of segment b with segment a if b lies on the line through a, 0 otherwise
+     */
+    static double overlap(double a1x, double a1y, double a2x, double a2y,
+                          double b1x, double b1y, double b2x, double b2y) {
+
+        double dx = a2x - a1x;
+        double dy = a2y - a1y;
+        double length = Math.sqrt(dx * dx + dy * dy);
+
+        if (length <= TOLERANCE)
+            return 0;
+
+        // distances of b endpoints from the line through a
+        if (Math.abs(Segments.signedArea(a1x, a1y, a2x, a2y, b1x, b1y)) > TOLERANCE * length
+                || Math.abs(Segments.signedArea(a1x, a1y, a2x, a2y, b2x, b2y)) > TOLERANCE * length)
+            return 0;
+
+        // positions of b endpoints along a
+        double t1 = ((b1x - a1x) * dx + (b1y - a1y) * dy) / length;
+        double t2 = ((b2x - a1x) * dx + (b2y - a1y) * dy) / length;
+
+        double start = Math.max(0, Math.min(t1, t2));
+        double end = Math.min(length, Math.max(t1, t2));
+
+        return Math.max(0, end - start);
+    }
+}
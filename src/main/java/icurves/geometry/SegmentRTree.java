@@ -0,0 +1,398 @@
+package icurves.geometry;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Static R-tree over boundary segments of several polygons, each polygon tagged with an object, e.g. its curve.
+ * Packed with the Sort-Tile-Recursive algorithm and stored in flat arrays.
+ * Immutable once built, so it can be queried from several threads.
+ *
+ * @param <T> tag type
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class SegmentRTree<T> {
+
+    private static final int NODE_SIZE = 8;
+
+    private final List<T> tags;
+
+    private final int numSegments;
+
+    /**
+     * Packed x1, y1, x2, y2 of each segment, in tree order.
+     */
+    private final double[] segments;
+
+    /**
+     * Index into tags of each segment.
+     */
+    private final int[] segmentTags;
+
+    /**
+     * Packed minX, minY, maxX, maxY of segments followed by nodes of each level, root last.
+     */
+    private final double[] boxes;
+
+    /**
+     * Index of the first box of each level, level 0 being segments.
+     */
+    private final int[] levelStart;
+
+    /**
+     * @param polygons polygons whose boundaries are indexed
+     * @param tags tag of each polygon
+     */
+    public SegmentRTree(List<RingPolygon> polygons, List<T> tags) {
+        if (polygons.size() != tags.size())
+            throw new IllegalArgumentException("Each polygon needs a tag");
+
+        this.tags = tags;
+
+        int n = 0;
+        for (RingPolygon polygon : polygons)
+            n += polygon.numVertices();
+
+        numSegments = n;
+
+        double[] raw = new double[n * 4];
+        int[] rawTags = new int[n];
+
+        int s = 0;
+        for (int p = 0; p < polygons.size(); p++) {
+            RingPolygon polygon = polygons.get(p);
+
+            for (int r = 0; r < polygon.numRings(); r++) {
+                double[] ring = polygon.ring(r);
+                int size = ring.length;
+
+                for (int i = 0, j = size - 2; i < size; j = i, i += 2) {
+                    raw[s * 4] = ring[j];
+                    raw[s * 4 + 1] = ring[j + 1];
+                    raw[s * 4 + 2] = ring[i];
+                    raw[s * 4 + 3] = ring[i + 1];
+                    rawTags[s] = p;
+                    s++;
+                }
+            }
+        }
+
+        Integer[] order = sortTileRecursive(raw, n);
+
+        segments = new double[n * 4];
+        segmentTags = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(raw, order[i] * 4, segments, i * 4, 4);
+            segmentTags[i] = rawTags[order[i]];
+        }
+
+        // count boxes on each level
+        int numLevels = 1;
+        int total = n;
+        for (int count = n; count > 1; count = (count + NODE_SIZE - 1) / NODE_SIZE) {
+            total += (count + NODE_SIZE - 1) / NODE_SIZE;
+            numLevels++;
+        }
+
+        levelStart = new int[numLevels + 1];
+        boxes = new double[total * 4];
+
+        for (int i = 0; i < n; i++) {
+            boxes[i * 4] = Math.min(segments[i * 4], segments[i * 4 + 2]);
+            boxes[i * 4 + 1] = Math.min(segments[i * 4 + 1], segments[i * 4 + 3]);
+            boxes[i * 4 + 2] = Math.max(segments[i * 4], segments[i * 4 + 2]);
+            boxes[i * 4 + 3] = Math.max(segments[i * 4 + 1], segments[i * 4 + 3]);
+        }
+
+        levelStart[1] = n;
+
+        for (int level = 1; level < numLevels; level++) {
+            int childStart = levelStart[level - 1];
+            int childEnd = levelStart[level];
+            int node = childEnd;
+
+            for (int child = childStart; child < childEnd; child += NODE_SIZE, node++) {
+                double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+                for (int c = child; c < Math.min(child + NODE_SIZE, childEnd); c++) {
+                    minX = Math.min(minX, boxes[c * 4]);
+                    minY = Math.min(minY, boxes[c * 4 + 1]);
+                    maxX = Math.max(maxX, boxes[c * 4 + 2]);
+                    maxY = Math.max(maxY, boxes[c * 4 + 3]);
+                }
+
+                boxes[node * 4] = minX;
+                boxes[node * 4 + 1] = minY;
+                boxes[node * 4 + 2] = maxX;
+                boxes[node * 4 + 3] = maxY;
+            }
+
+            levelStart[level + 1] = node;
+        }
+    }
+
+    /**
+     * Sorts segment centers into vertical slices by x, then each slice by y,
+     * so that consecutive runs of NODE_SIZE segments are spatially close.
+     *
+     * @return segment indices in tree order
+     */
+    private static Integer[] sortTileRecursive(double[] raw, int n) {
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+
+        Comparator<Integer> byX = Comparator.comparingDouble(i -> raw[i * 4] + raw[i * 4 + 2]);
+        Comparator<Integer> byY = Comparator.comparingDouble(i -> raw[i * 4 + 1] + raw[i * 4 + 3]);
+
+        Arrays.sort(order, byX);
+
+        int numLeaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+        int sliceSize = NODE_SIZE * (int) Math.ceil(Math.sqrt(numLeaves));
+
+        for (int i = 0; i < n; i += sliceSize) {
+            Arrays.sort(order, i, Math.min(i + sliceSize, n), byY);
+        }
+
+        return order;
+    }
+
+    /**
+     * A segment passing through a polygon vertex counts once for that vertex.
+     *
+     * @return number of times segment x1, y1 - x2, y2 touches or crosses the boundary of each tagged polygon,
+     * polygons that are not touched are not in the map
+     */
+    public Map<T, Integer> crossings(double x1, double y1, double x2, double y2) {
+        Map<T, Integer> result = new HashMap<>();
+        addCrossings(x1, y1, x2, y2, result);
+        return result;
+    }
+
+    /**
+     * @param polyline packed coordinates of an open polyline
+     * @return number of times the polyline touches or crosses the boundary of each tagged polygon
+     */
+    public Map<T, Integer> crossings(double[] polyline) {
+        Map<T, Integer> result = new HashMap<>();
+
+        for (int i = 0; i + 3 < polyline.length; i += 2) {
+            addCrossings(polyline[i], polyline[i + 1], polyline[i + 2], polyline[i + 3], result);
+        }
+
+        return result;
+    }
+
+    private void addCrossings(double x1, double y1, double x2, double y2, Map<T, Integer> result) {
+        forEachCandidate(x1, y1, x2, y2, s -> {
+            if (crosses(s, x1, y1, x2, y2)) {
+                result.merge(tags.get(segmentTags[s]), 1, Integer::sum);
+            }
+        });
+    }
+
+    /**
+     * @return number of indexed segments that segment x1, y1 - x2, y2 crosses at a single point interior to both
+     */
+    public int properCrossings(double x1, double y1, double x2, double y2) {
+        int[] count = new int[1];
+
+        forEachCandidate(x1, y1, x2, y2, s -> {
+            if (Segments.crossProperly(x1, y1, x2, y2,
+                    segments[s * 4], segments[s * 4 + 1], segments[s * 4 + 2], segments[s * 4 + 3]))
+                count[0]++;
+        });
+
+        return count[0];
+    }
+
+    /**
+     * @return packed coordinates of indexed polygon vertices within the box
+     */
+    public double[] vertices(double minX, double minY, double maxX, double maxY) {
+        CoordinateList points = new CoordinateList(2);
+
+        // each vertex starts exactly one segment of its ring
+        forEachCandidate(minX, minY, maxX, maxY, s -> {
+            double x = segments[s * 4], y = segments[s * 4 + 1];
+
+            if (minX <= x && x <= maxX && minY <= y && y <= maxY)
+                points.add(x, y);
+        });
+
+        return points.toArray();
+    }
+
+    /**
+     * @return packed coordinates of points where segment x1, y1 - x2, y2 crosses indexed segments,
+     * segments it overlaps are skipped
+     */
+    public double[] crossingPoints(double x1, double y1, double x2, double y2) {
+        CoordinateList points = new CoordinateList(2);
+
+        forEachCandidate(x1, y1, x2, y2, s -> {
+            double sx1 = segments[s * 4], sy1 = segments[s * 4 + 1];
+            double sx2 = segments[s * 4 + 2], sy2 = segments[s * 4 + 3];
+
+            if (!crosses(s, x1, y1, x2, y2))
+                return;
+
+            double d1 = Segments.signedArea(sx1, sy1, sx2, sy2, x1, y1);
+            double d2 = Segments.signedArea(sx1, sy1, sx2, sy2, x2, y2);
+
+            if (d1 == d2)
+                return;
+
+            double t = d1 / (d1 - d2);
+            points.add(x1 + t * (x2 - x1), y1 + t * (y2 - y1));
+        });
+
+        return points.toArray();
+    }
+
+    /**
+     * Calls action with each segment whose bounding box overlaps that of segment x1, y1 - x2, y2.
+     */
+    private void forEachCandidate(double x1, double y1, double x2, double y2, IntConsumer action) {
+        if (numSegments == 0)
+            return;
+
+        double minX = Math.min(x1, x2), minY = Math.min(y1, y2);
+        double maxX = Math.max(x1, x2), maxY = Math.max(y1, y2);
+
+        // (box index, level) pairs still to visit
+        int[] stack = new int[2 * NODE_SIZE * levelStart.length];
+        int top = 0;
+
+        int rootLevel = levelStart.length - 2;
+        stack[top++] = levelStart[rootLevel];
+        stack[top++] = rootLevel;
+
+        while (top > 0) {
+            int level = stack[--top];
+            int box = stack[--top];
+
+            if (boxes[box * 4] > maxX || boxes[box * 4 + 2] < minX
+                    || boxes[box * 4 + 1] > maxY || boxes[box * 4 + 3] < minY)
+                continue;
+
+            if (level == 0) {
+                action.accept(box);
+                continue;
+            }
+
+            int first = levelStart[level - 1] + (box - levelStart[level]) * NODE_SIZE;
+            int last = Math.min(first + NODE_SIZE, levelStart[level]);
+
+            for (int child = first; child < last; child++) {
+                stack[top++] = child;
+                stack[top++] = level - 1;
+            }
+        }
+    }
+
+    /**
+     * @return distance from point x, y to the nearest indexed segment, or infinity if there are no segments
+     */
+    public double distance(double x, double y) {
+        return distance(x, y, x, y);
+    }
+
+    /**
+     * @return distance from segment x1, y1 - x2, y2 to the nearest indexed segment, or infinity if there are no segments
+     */
+    public double distance(double x1, double y1, double x2, double y2) {
+        if (numSegments == 0)
+            return Double.POSITIVE_INFINITY;
+
+        int rootLevel = levelStart.length - 2;
+
+        return Math.sqrt(nearest(levelStart[rootLevel], rootLevel, x1, y1, x2, y2, Double.POSITIVE_INFINITY));
+    }
+
+    /**
+     * Branch and bound: children are visited nearest box first,
+     * and boxes further than the best distance so far are not visited at all.
+     *
+     * @return min of bestSq and squared distance from segment x1, y1 - x2, y2 to segments under given box
+     */
+    private double nearest(int box, int level, double x1, double y1, double x2, double y2, double bestSq) {
+        if (level == 0)
+            return Math.min(bestSq, segmentDistanceSq(box, x1, y1, x2, y2));
+
+        int first = levelStart[level - 1] + (box - levelStart[level]) * NODE_SIZE;
+        int last = Math.min(first + NODE_SIZE, levelStart[level]);
+        int count = last - first;
+
+        int[] children = new int[count];
+        double[] distances = new double[count];
+
+        // insertion sort by box distance, at most NODE_SIZE children
+        for (int i = 0; i < count; i++) {
+            int child = first + i;
+            double d = boxDistanceSq(child, x1, y1, x2, y2);
+
+            int j = i;
+            while (j > 0 && distances[j - 1] > d) {
+                children[j] = children[j - 1];
+                distances[j] = distances[j - 1];
+                j--;
+            }
+
+            children[j] = child;
+            distances[j] = d;
+        }
+
+        for (int i = 0; i < count && distances[i] < bestSq; i++) {
+            bestSq = nearest(children[i], level - 1, x1, y1, x2, y2, bestSq);
+        }
+
+        return bestSq;
+    }
+
+    /**
+     * @return squared distance between the box and the bounding box of segment x1, y1 - x2, y2,
+     * a lower bound of the distance to anything in the box
+     */
+    private double boxDistanceSq(int box, double x1, double y1, double x2, double y2) {
+        double dx = Math.max(0, Math.max(boxes[box * 4] - Math.max(x1, x2), Math.min(x1, x2) - boxes[box * 4 + 2]));
+        double dy = Math.max(0, Math.max(boxes[box * 4 + 1] - Math.max(y1, y2), Math.min(y1, y2) - boxes[box * 4 + 3]));
+
+        return dx * dx + dy * dy;
+    }
+
+    private double segmentDistanceSq(int s, double x1, double y1, double x2, double y2) {
+        double ax = segments[s * 4], ay = segments[s * 4 + 1];
+        double bx = segments[s * 4 + 2], by = segments[s * 4 + 3];
+
+        if (x1 == x2 && y1 == y2)
+            return Segments.distanceSq(x1, y1, ax, ay, bx, by);
+
+        if (Segments.intersect(x1, y1, x2, y2, ax, ay, bx, by))
+            return 0;
+
+        return Math.min(Math.min(Segments.distanceSq(x1, y1, ax, ay, bx, by), Segments.distanceSq(x2, y2, ax, ay, bx, by)),
+                Math.min(Segments.distanceSq(ax, ay, x1, y1, x2, y2), Segments.distanceSq(bx, by, x1, y1, x2, y2)));
+    }
+
+    private boolean crosses(int s, double x1, double y1, double x2, double y2) {
+        double sx1 = segments[s * 4], sy1 = segments[s * 4 + 1];
+        double sx2 = segments[s * 4 + 2], sy2 = segments[s * 4 + 3];
+
+        if (!Segments.intersect(x1, y1, x2, y2, sx1, sy1, sx2, sy2))
+            return false;
+
+        // the next segment of the ring reports a touch at their shared vertex
+        boolean throughEnd = Segments.signedArea(x1, y1, x2, y2, sx2, sy2) == 0
+                && Math.min(x1, x2) <= sx2 && sx2 <= Math.max(x1, x2)
+                && Math.min(y1, y2) <= sy2 && sy2 <= Math.max(y1, y2);
+
+        return !throughEnd;
+    }
+}
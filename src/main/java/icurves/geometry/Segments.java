@@ -0,0 +1,82 @@
+package icurves.geometry;
+
+/**
+ * Predicates and helpers for line segments given by raw coordinates.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class Segments {
+
+    private Segments() {}
+
+    /**
+     * @return twice the signed area of triangle p0, p1, p2;
+     * positive if p2 is to the left of p0 -> p1 (in y-up coordinates)
+     */
+    public static double signedArea(double p0x, double p0y, double p1x, double p1y, double p2x, double p2y) {
+        return (p0x - p2x) * (p1y - p2y) - (p1x - p2x) * (p0y - p2y);
+    }
+
+    /**
+     * @return true if segments a1-a2 and b1-b2 touch or cross
+     */
+    public static boolean intersect(double a1x, double a1y, double a2x, double a2y,
+                                    double b1x, double b1y, double b2x, double b2y) {
+
+        double d1 = signedArea(b1x, b1y, b2x, b2y, a1x, a1y);
+        double d2 = signedArea(b1x, b1y, b2x, b2y, a2x, a2y);
+        double d3 = signedArea(a1x, a1y, a2x, a2y, b1x, b1y);
+        double d4 = signedArea(a1x, a1y, a2x, a2y, b2x, b2y);
+
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0))
+                && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0)))
+            return true;
+
+        return (d1 == 0 && onSegment(b1x, b1y, b2x, b2y, a1x, a1y))
+                || (d2 == 0 && onSegment(b1x, b1y, b2x, b2y, a2x, a2y))
+                || (d3 == 0 && onSegment(a1x, a1y, a2x, a2y, b1x, b1y))
+                || (d4 == 0 && onSegment(a1x, a1y, a2x, a2y, b2x, b2y));
+    }
+
+    /**
+     * @return true if segments a1-a2 and b1-b2 cross at a single point interior to both
+     */
+    public static boolean crossProperly(double a1x, double a1y, double a2x, double a2y,
+                                        double b1x, double b1y, double b2x, double b2y) {
+
+        double d1 = signedArea(b1x, b1y, b2x, b2y, a1x, a1y);
+        double d2 = signedArea(b1x, b1y, b2x, b2y, a2x, a2y);
+        double d3 = signedArea(a1x, a1y, a2x, a2y, b1x, b1y);
+        double d4 = signedArea(a1x, a1y, a2x, a2y, b2x, b2y);
+
+        return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0))
+                && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+    }
+
+    /**
+     * @return squared distance from point x, y to segment a - b
+     */
+    public static double distanceSq(double x, double y, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+
+        double t = lengthSq == 0 ? 0 : ((x - ax) * dx + (y - ay) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+
+        double ex = x - (ax + t * dx);
+        double ey = y - (ay + t * dy);
+
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * Assumes p is collinear with s1-s2.
+     *
+     * @return true if p lies within the bounding box of s1-s2
+     */
+    private static boolean onSegment(double s1x, double s1y, double s2x, double s2y, double px, double py) {
+        return Math.min(s1x, s2x) <= px && px <= Math.max(s1x, s2x)
+                && Math.min(s1y, s2y) <= py && py <= Math.max(s1y, s2y);
+    }
+}
@@ -0,0 +1,232 @@
+package icurves.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Point location over a set of polygons with disjoint interiors, e.g. basic regions of a diagram.
+ * The plane is cut into vertical slabs at every vertex x; within a slab no two edges cross,
+ * so edges are kept sorted bottom to top and each gap between them is labelled with the polygon it lies in.
+ * A query is then two binary searches, O(log n).
+ * Takes O(n^2) space in the worst case, which is fine for the few hundred edges of a diagram.
+ * Immutable once built, so it can be queried from several threads.
+ *
+ * @param <T> tag type
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class SlabLocator<T> {
+
+    private static final int NONE = -1;
+
+    private final List<T> tags;
+
+    /**
+     * Distinct vertex x coordinates in ascending order, slab i is [xs[i], xs[i + 1]].
+     */
+    private final double[] xs;
+
+    /**
+     * Packed left x, y, right x, y of each non-vertical edge.
+     */
+    private final double[] edges;
+
+    /**
+     * Index of the first edge of each slab in slabEdges.
+     */
+    private final int[] slabStart;
+
+    /**
+     * Edges crossing each slab, bottom to top.
+     */
+    private final int[] slabEdges;
+
+    /**
+     * Index into tags of the polygon right above each edge in slabEdges, or NONE.
+     */
+    private final int[] gapTags;
+
+    /**
+     * @param polygons polygons with disjoint interiors
+     * @param tags tag of each polygon
+     */
+    public SlabLocator(List<RingPolygon> polygons, List<T> tags) {
+        if (polygons.size() != tags.size())
+            throw new IllegalArgumentException("Each polygon needs a tag");
+
+        this.tags = tags;
+
+        int n = 0;
+        for (RingPolygon polygon : polygons)
+            n += polygon.numVertices();
+
+        double[] edges = new double[n * 4];
+        int[] edgeTags = new int[n];
+        double[] allX = new double[n];
+
+        int numEdges = 0;
+        int numX = 0;
+
+        for (int p = 0; p < polygons.size(); p++) {
+            RingPolygon polygon = polygons.get(p);
+
+            for (int r = 0; r < polygon.numRings(); r++) {
+                double[] ring = polygon.ring(r);
+                int size = ring.length;
+
+                for (int i = 0, j = size - 2; i < size; j = i, i += 2) {
+                    allX[numX++] = ring[i];
+
+                    // vertical edges never separate two gaps of a slab
+                    if (ring[j] == ring[i])
+                        continue;
+
+                    boolean leftToRight = ring[j] < ring[i];
+                    int a = leftToRight ? j : i;
+                    int b = leftToRight ? i : j;
+
+                    edges[numEdges * 4] = ring[a];
+                    edges[numEdges * 4 + 1] = ring[a + 1];
+                    edges[numEdges * 4 + 2] = ring[b];
+                    edges[numEdges * 4 + 3] = ring[b + 1];
+                    edgeTags[numEdges] = p;
+                    numEdges++;
+                }
+            }
+        }
+
+        this.edges = Arrays.copyOf(edges, numEdges * 4);
+
+        Arrays.sort(allX, 0, numX);
+
+        int distinct = 0;
+        for (int i = 0; i < numX; i++) {
+            if (distinct == 0 || allX[i] != allX[distinct - 1])
+                allX[distinct++] = allX[i];
+        }
+
+        xs = Arrays.copyOf(allX, distinct);
+
+        int numSlabs = Math.max(0, distinct - 1);
+
+        // first pass counts edges per slab, second fills them in
+        slabStart = new int[numSlabs + 1];
+
+        for (int e = 0; e < numEdges; e++) {
+            for (int s = slabOf(this.edges[e * 4]); s < slabOf(this.edges[e * 4 + 2]); s++) {
+                slabStart[s + 1]++;
+            }
+        }
+
+        for (int s = 0; s < numSlabs; s++) {
+            slabStart[s + 1] += slabStart[s];
+        }
+
+        slabEdges = new int[slabStart[numSlabs]];
+        gapTags = new int[slabEdges.length];
+
+        int[] fill = Arrays.copyOf(slabStart, numSlabs);
+
+        for (int e = 0; e < numEdges; e++) {
+            for (int s = slabOf(this.edges[e * 4]); s < slabOf(this.edges[e * 4 + 2]); s++) {
+                slabEdges[fill[s]++] = e;
+            }
+        }
+
+        int[] parity = new int[polygons.size()];
+
+        for (int s = 0; s < numSlabs; s++) {
+            double midX = (xs[s] + xs[s + 1]) / 2;
+
+            sortSlab(slabStart[s], slabStart[s + 1], midX);
+
+            // walking up, each polygon is entered and left by the even-odd rule
+            Arrays.fill(parity, 0);
+            int current = NONE;
+
+            for (int i = slabStart[s]; i < slabStart[s + 1]; i++) {
+                int p = edgeTags[slabEdges[i]];
+                parity[p] ^= 1;
+
+                if (parity[p] == 1) {
+                    current = p;
+                } else if (current == p) {
+                    current = oddIndex(parity);
+                }
+
+                gapTags[i] = current;
+            }
+        }
+    }
+
+    /**
+     * @return index of the slab that starts at vertex x
+     */
+    private int slabOf(double x) {
+        return Arrays.binarySearch(xs, x);
+    }
+
+    private void sortSlab(int from, int to, double x) {
+        List<Integer> slab = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++)
+            slab.add(slabEdges[i]);
+
+        slab.sort((e1, e2) -> Double.compare(yAt(e1, x), yAt(e2, x)));
+
+        for (int i = from; i < to; i++)
+            slabEdges[i] = slab.get(i - from);
+    }
+
+    private static int oddIndex(int[] parity) {
+        for (int i = 0; i < parity.length; i++) {
+            if (parity[i] == 1)
+                return i;
+        }
+
+        return NONE;
+    }
+
+    private double yAt(int e, double x) {
+        double x1 = edges[e * 4], y1 = edges[e * 4 + 1];
+        double x2 = edges[e * 4 + 2], y2 = edges[e * 4 + 3];
+
+        return y1 + (x - x1) * (y2 - y1) / (x2 - x1);
+    }
+
+    /**
+     * Points on a shared boundary may be attributed to either polygon.
+     *
+     * @return tag of the polygon containing point x, y or null if there is no such polygon
+     */
+    public T locate(double x, double y) {
+        if (xs.length < 2 || x < xs[0] || x > xs[xs.length - 1])
+            return null;
+
+        int slab = Arrays.binarySearch(xs, x);
+        if (slab < 0)
+            slab = -slab - 2;
+
+        slab = Math.min(slab, xs.length - 2);
+
+        // last edge in the slab at or below y
+        int low = slabStart[slab];
+        int high = slabStart[slab + 1] - 1;
+        int below = NONE;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            if (yAt(slabEdges[mid], x) <= y) {
+                below = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        if (below == NONE || gapTags[below] == NONE)
+            return null;
+
+        return tags.get(gapTags[below]);
+    }
+}
@@ -0,0 +1,131 @@
+package icurves.geometry;
+
+/**
+ * An endpoint of an edge processed by {@link SweepOverlay}.
+ * Each edge is represented by a left and a right event pointing to each other.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class SweepEvent {
+
+    /**
+     * Computed intersection points closer than this to an endpoint
+     * are replaced by that endpoint.
+     */
+    static final double SNAP_DISTANCE = 1e-7;
+
+    /**
+     * Points closer than this to the line through an edge are considered to lie on it.
+     * Split points are rounded, so pieces of collinear edges are only collinear within this distance.
+     */
+    static final double COLLINEAR_DISTANCE = 1e-9;
+
+    final double x, y;
+
+    /**
+     * Is this the left (first swept) endpoint of the edge.
+     */
+    boolean left;
+
+    /**
+     * The other endpoint of the edge.
+     */
+    SweepEvent other;
+
+    /**
+     * Index of the operand this edge came from.
+     */
+    final int operand;
+
+    /**
+     * Bit set of operands whose inside / outside status flips when crossing this edge.
+     * Becomes 0 when an overlapping edge takes over its role.
+     */
+    long mask;
+
+    /**
+     * Bit set of operands containing the area just below this edge.
+     * For vertical edges this is the area to the right.
+     * Only meaningful for left events.
+     */
+    long below;
+
+    /**
+     * Creation order, used to break ties between otherwise identical events.
+     */
+    final int id;
+
+    SweepEvent(double x, double y, boolean left, SweepEvent other, int operand, long mask, int id) {
+        this.x = x;
+        this.y = y;
+        this.left = left;
+        this.other = other;
+        this.operand = operand;
+        this.mask = mask;
+        this.id = id;
+    }
+
+    /**
+     * @return bit set of operands containing the area just above this edge
+     */
+    long above() {
+        return below ^ mask;
+    }
+
+    boolean isVertical() {
+        return x == other.x;
+    }
+
+    boolean samePoint(SweepEvent e) {
+        return x == e.x && y == e.y;
+    }
+
+    boolean samePoint(double px, double py) {
+        return x == px && y == py;
+    }
+
+    /**
+     * @return true if this edge is below point px, py
+     */
+    boolean isBelow(double px, double py) {
+        return left
+                ? Segments.signedArea(x, y, other.x, other.y, px, py) > 0
+                : Segments.signedArea(other.x, other.y, x, y, px, py) > 0;
+    }
+
+    boolean isAbove(double px, double py) {
+        return !isBelow(px, py);
+    }
+
+    /**
+     * @return true if point px, py is within snap distance of this endpoint
+     */
+    boolean isNear(double px, double py) {
+        return Math.abs(x - px) < SNAP_DISTANCE && Math.abs(y - py) < SNAP_DISTANCE;
+    }
+
+    /**
+     * @return true if point px, py lies on the line through this edge
+     */
+    boolean isCollinear(double px, double py) {
+        double dx = other.x - x;
+        double dy = other.y - y;
+
+        return Math.abs(Segments.signedArea(x, y, other.x, other.y, px, py)) <= COLLINEAR_DISTANCE * Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Symmetric, so that both orderings of two edges agree.
+     *
+     * @return true if edges of e1 and e2 lie on the same line
+     */
+    static boolean collinear(SweepEvent e1, SweepEvent e2) {
+        return e1.isCollinear(e2.x, e2.y) && e1.isCollinear(e2.other.x, e2.other.y)
+                || e2.isCollinear(e1.x, e1.y) && e2.isCollinear(e1.other.x, e1.other.y);
+    }
+
+    @Override
+    public String toString() {
+        return "SweepEvent[" + x + "," + y + (left ? ",L" : ",R") + ",op=" + operand + "]";
+    }
+}
@@ -0,0 +1,760 @@
+package icurves.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Overlays up to 64 polygons in a single plane sweep.
+ *
+ * Based on the algorithm by F. Martinez, A.J. Rueda, F.R. Feito:
+ * "A new algorithm for computing Boolean operations on polygons" (2009),
+ * generalized from two operands to many.
+ * Every edge is split at intersections and labeled with the set of operands
+ * that contain the area just below it.
+ * A region is then any predicate over that set, e.g. "in operand 0 but not in 1".
+ *
+ * Operands use the even-odd rule, so overlapping edges simply cancel out.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class SweepOverlay {
+
+    private final PriorityQueue<SweepEvent> queue = new PriorityQueue<>(SweepOverlay::compareEvents);
+
+    private final TreeSet<SweepEvent> status = new TreeSet<>(SweepOverlay::compareSegments);
+
+    /**
+     * Left events of all edge pieces in the order they were swept.
+     */
+    private final List<SweepEvent> pieces = new ArrayList<>();
+
+    /**
+     * All vertices seen so far, so that computed intersection points
+     * can be snapped to a vertex that is already there.
+     */
+    private final VertexGrid vertices = new VertexGrid();
+
+    private int nextId = 0;
+
+    SweepOverlay(List<RingPolygon> operands) {
+        if (operands.size() > 64)
+            throw new IllegalArgumentException("At most 64 operands are supported: " + operands.size());
+
+        for (int i = 0; i < operands.size(); i++) {
+            addOperand(operands.get(i), i);
+        }
+    }
+
+    private void addOperand(RingPolygon polygon, int operand) {
+        long mask = 1L << operand;
+
+        for (int r = 0; r < polygon.numRings(); r++) {
+            double[] ring = polygon.ring(r);
+            int n = ring.length;
+
+            // nearly equal vertices of different operands are made equal
+            double[] snapped = new double[n];
+            for (int i = 0; i < n; i += 2) {
+                double[] vertex = vertices.add(ring[i], ring[i + 1]);
+                snapped[i] = vertex[0];
+                snapped[i + 1] = vertex[1];
+            }
+
+            for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+                addEdge(snapped[j], snapped[j + 1], snapped[i], snapped[i + 1], operand, mask);
+            }
+        }
+    }
+
+    private void addEdge(double x1, double y1, double x2, double y2, int operand, long mask) {
+        if (x1 == x2 && y1 == y2)
+            return;
+
+        SweepEvent e1 = new SweepEvent(x1, y1, false, null, operand, mask, nextId++);
+        SweepEvent e2 = new SweepEvent(x2, y2, false, e1, operand, mask, nextId++);
+        e1.other = e2;
+
+        if (compareEvents(e1, e2) < 0) {
+            e1.left = true;
+        } else {
+            e2.left = true;
+        }
+
+        queue.add(e1);
+        queue.add(e2);
+    }
+
+    /**
+     * Runs the sweep.
+     * Edges starting to the right of xLimit are not processed,
+     * which is fine as long as the caller is not interested in regions past it.
+     *
+     * @param xLimit max x to sweep to
+     */
+    void sweep(double xLimit) {
+        // left events at the current sweep point
+        List<SweepEvent> started = new ArrayList<>();
+
+        while (!queue.isEmpty()) {
+            SweepEvent event = queue.peek();
+
+            if (!started.isEmpty() && !event.samePoint(started.get(0))) {
+                computeFields(started);
+                started.clear();
+            }
+
+            if (event.x > xLimit)
+                break;
+
+            queue.poll();
+
+            if (event.left) {
+                if (insert(event))
+                    started.add(event);
+            } else {
+                remove(event.other);
+            }
+        }
+
+        if (!started.isEmpty())
+            computeFields(started);
+    }
+
+    /**
+     * @return false if the event has been put back into the queue
+     */
+    private boolean insert(SweepEvent event) {
+        pieces.add(event);
+        status.add(event);
+
+        SweepEvent prev = status.lower(event);
+        SweepEvent next = status.higher(event);
+
+        if (next != null)
+            possibleIntersection(event, next);
+
+        if (prev != null)
+            possibleIntersection(prev, event);
+
+        // the edge starts in the middle of a neighbor, which has just been split here,
+        // so retry once the left part of the neighbor is gone to keep the status consistent
+        if ((prev != null && prev.other.samePoint(event)) || (next != null && next.other.samePoint(event))) {
+            pieces.remove(pieces.size() - 1);
+            remove(event);
+            queue.add(event);
+            return false;
+        }
+
+        return true;
+    }
+
+    private void remove(SweepEvent leftEvent) {
+        SweepEvent prev = status.lower(leftEvent);
+        SweepEvent next = status.higher(leftEvent);
+
+        if (!status.remove(leftEvent)) {
+            // ordering got inconsistent due to rounding, so find the edge by identity
+            prev = null;
+            next = null;
+
+            Iterator<SweepEvent> it = status.iterator();
+            while (it.hasNext()) {
+                SweepEvent e = it.next();
+
+                if (e == leftEvent) {
+                    it.remove();
+                    next = it.hasNext() ? it.next() : null;
+                    break;
+                }
+
+                prev = e;
+            }
+        }
+
+        if (prev != null && next != null) {
+            possibleIntersection(prev, next);
+        }
+    }
+
+    /**
+     * Labels all edges starting at the current sweep point.
+     * This is done only after every event at that point has been processed,
+     * since edges passing through the point are split there, and so
+     * the edges below can change after the first left event is inserted.
+     *
+     * @param started left events at the current sweep point
+     */
+    private void computeFields(List<SweepEvent> started) {
+        started.sort(SweepOverlay::compareSegments);
+
+        // pieces of overlapping edges split separately are only found equal here
+        SweepEvent carrier = null;
+        SweepEvent last = null;
+
+        for (SweepEvent e : started) {
+            if (last != null && status.lower(e) == last && carrier.other.samePoint(e.other)) {
+                carrier.mask ^= e.mask;
+                carrier.other.mask = carrier.mask;
+                e.mask = 0;
+                e.other.mask = 0;
+            } else {
+                carrier = e;
+            }
+
+            last = e;
+        }
+
+        // bottom up, so that edges below are already labeled
+        for (SweepEvent e : started) {
+            SweepEvent prev = status.lower(e);
+
+            if (prev == null) {
+                e.below = 0;
+            } else {
+                // an edge starting on a vertical edge has the area right of that edge below it
+                e.below = prev.isVertical() ? prev.below : prev.above();
+            }
+        }
+    }
+
+    /**
+     * Splits edges of se1 and se2 if they intersect.
+     * Overlapping parts are merged into a single edge.
+     */
+    private void possibleIntersection(SweepEvent se1, SweepEvent se2) {
+        double[] inter = intersection(se1, se2);
+
+        if (inter == null)
+            return;
+
+        if (inter.length == 2) {
+            if (se1.samePoint(se2) || se1.other.samePoint(se2.other))
+                return;
+
+            double[] vertex = vertices.add(inter[0], inter[1]);
+
+            double px = vertex[0];
+            double py = vertex[1];
+
+            // an edge is never split right next to its own endpoint
+            if (!se1.isNear(px, py) && !se1.other.isNear(px, py))
+                divideSegment(se1, px, py);
+
+            if (!se2.isNear(px, py) && !se2.other.isNear(px, py))
+                divideSegment(se2, px, py);
+
+            return;
+        }
+
+        // the edges overlap
+        SweepEvent[] events = new SweepEvent[4];
+        int count = 0;
+        boolean leftCoincide = false;
+        boolean rightCoincide = false;
+
+        if (se1.samePoint(se2)) {
+            leftCoincide = true;
+        } else if (compareEvents(se1, se2) > 0) {
+            events[count++] = se2;
+            events[count++] = se1;
+        } else {
+            events[count++] = se1;
+            events[count++] = se2;
+        }
+
+        if (se1.other.samePoint(se2.other)) {
+            rightCoincide = true;
+        } else if (compareEvents(se1.other, se2.other) > 0) {
+            events[count++] = se2.other;
+            events[count++] = se1.other;
+        } else {
+            events[count++] = se1.other;
+            events[count++] = se2.other;
+        }
+
+        if (leftCoincide) {
+            // make both edges equal, then let the lowest of equal edges account for all of them
+            if (!rightCoincide) {
+                divideSegment(events[1].other, events[0].x, events[0].y);
+            }
+
+            SweepEvent carrier = se1;
+            SweepEvent lower = status.lower(carrier);
+
+            while (carrier.mask == 0 && lower != null
+                    && lower.samePoint(carrier) && lower.other.samePoint(carrier.other)) {
+                carrier = lower;
+                lower = status.lower(carrier);
+            }
+
+            carrier.mask ^= se2.mask;
+            carrier.other.mask = carrier.mask;
+            se2.mask = 0;
+            se2.other.mask = 0;
+            return;
+        }
+
+        if (rightCoincide) {
+            divideSegment(events[0], events[1].x, events[1].y);
+            return;
+        }
+
+        if (events[0] != events[3].other) {
+            // neither edge fully includes the other
+            divideSegment(events[0], events[1].x, events[1].y);
+            divideSegment(events[1], events[2].x, events[2].y);
+            return;
+        }
+
+        // one edge includes the other
+        divideSegment(events[0], events[1].x, events[1].y);
+        divideSegment(events[3].other, events[2].x, events[2].y);
+        return;
+    }
+
+    /**
+     * Splits the edge of left event se at point px, py.
+     * The left part keeps se, the right part gets new events.
+     */
+    private void divideSegment(SweepEvent se, double px, double py) {
+        SweepEvent r = new SweepEvent(px, py, false, se, se.operand, se.mask, nextId++);
+        SweepEvent l = new SweepEvent(px, py, true, se.other, se.operand, se.mask, nextId++);
+
+        if (compareEvents(l, se.other) > 0) {
+            // rounding error: the new left event would be processed after its right event
+            queue.remove(se.other);
+            se.other.left = true;
+            l.left = false;
+            queue.add(se.other);
+        }
+
+        se.other.other = l;
+        se.other = r;
+
+        queue.add(l);
+        queue.add(r);
+    }
+
+    /**
+     * @return null if edges don't intersect, {x, y} for a single point,
+     * {x1, y1, x2, y2} for the overlapping part of collinear edges
+     */
+    private static double[] intersection(SweepEvent se1, SweepEvent se2) {
+        double a1x = se1.x, a1y = se1.y, a2x = se1.other.x, a2y = se1.other.y;
+        double b1x = se2.x, b1y = se2.y, b2x = se2.other.x, b2y = se2.other.y;
+
+        double vax = a2x - a1x, vay = a2y - a1y;
+        double vbx = b2x - b1x, vby = b2y - b1y;
+        double ex = b1x - a1x, ey = b1y - a1y;
+
+        if (!SweepEvent.collinear(se1, se2)) {
+            double kross = vax * vby - vay * vbx;
+
+            if (kross == 0)
+                return null;
+
+            double s = (ex * vby - ey * vbx) / kross;
+            double t = (ex * vay - ey * vax) / kross;
+
+            if (s < 0 || s > 1 || t < 0 || t > 1)
+                return nearEndpoint(a1x + s * vax, a1y + s * vay, s, t, se1, se2);
+
+            if (s == 0)
+                return new double[] { a1x, a1y };
+            if (s == 1)
+                return new double[] { a2x, a2y };
+            if (t == 0)
+                return new double[] { b1x, b1y };
+            if (t == 1)
+                return new double[] { b2x, b2y };
+
+            double x = a1x + s * vax;
+            double y = a1y + s * vay;
+
+            double[] endpoint = snapToEndpoint(x, y, se1, se2);
+            return endpoint != null ? endpoint : new double[] { x, y };
+        }
+
+        // collinear
+        double sqrLenA = vax * vax + vay * vay;
+        double sb1 = (vax * ex + vay * ey) / sqrLenA;
+        double sb2 = sb1 + (vax * vbx + vay * vby) / sqrLenA;
+
+        double smin = Math.min(sb1, sb2);
+        double smax = Math.max(sb1, sb2);
+
+        if (smin > 1 || smax < 0)
+            return null;
+
+        // overlap endpoints are always endpoints of the edges, so we return them exactly
+        double startX, startY, endX, endY;
+
+        if (smin > 0) {
+            startX = sb1 < sb2 ? b1x : b2x;
+            startY = sb1 < sb2 ? b1y : b2y;
+        } else {
+            startX = a1x;
+            startY = a1y;
+        }
+
+        if (smax < 1) {
+            endX = sb1 > sb2 ? b1x : b2x;
+            endY = sb1 > sb2 ? b1y : b2y;
+        } else {
+            endX = a2x;
+            endY = a2y;
+        }
+
+        if (startX == endX && startY == endY)
+            return new double[] { startX, startY };
+
+        return new double[] { startX, startY, endX, endY };
+    }
+
+    /**
+     * An endpoint lying on the other edge may fall just outside of it due to rounding.
+     *
+     * @return the endpoint that intersection point x, y falls off of, if it is within snap distance
+     */
+    private static double[] nearEndpoint(double x, double y, double s, double t, SweepEvent se1, SweepEvent se2) {
+        SweepEvent end = null;
+
+        if (s < 0 || s > 1) {
+            end = s < 0 ? se1 : se1.other;
+            if (!end.isNear(x, y))
+                return null;
+        }
+
+        if (t < 0 || t > 1) {
+            SweepEvent end2 = t < 0 ? se2 : se2.other;
+            if (!end2.isNear(x, y))
+                return null;
+
+            if (end == null)
+                end = end2;
+        }
+
+        return new double[] { end.x, end.y };
+    }
+
+    /**
+     * @return endpoint of se1 or se2 within snap distance of x, y or null if none
+     */
+    private static double[] snapToEndpoint(double x, double y, SweepEvent se1, SweepEvent se2) {
+        SweepEvent[] candidates = { se1, se1.other, se2, se2.other };
+
+        for (SweepEvent e : candidates) {
+            if (e.isNear(x, y))
+                return new double[] { e.x, e.y };
+        }
+
+        return null;
+    }
+
+    /**
+     * Event queue order: by x, then y, right endpoints before left ones,
+     * then the lower edge first.
+     */
+    static int compareEvents(SweepEvent e1, SweepEvent e2) {
+        if (e1.x != e2.x)
+            return e1.x > e2.x ? 1 : -1;
+
+        if (e1.y != e2.y)
+            return e1.y > e2.y ? 1 : -1;
+
+        if (e1.left != e2.left)
+            return e1.left ? 1 : -1;
+
+        if (!SweepEvent.collinear(e1, e2))
+            return e1.isBelow(e2.other.x, e2.other.y) ? -1 : 1;
+
+        // collinear edges
+        if (e1.operand != e2.operand)
+            return e1.operand < e2.operand ? -1 : 1;
+
+        return Integer.compare(e1.id, e2.id);
+    }
+
+    /**
+     * Sweep line status order: bottom to top.
+     */
+    static int compareSegments(SweepEvent le1, SweepEvent le2) {
+        if (le1 == le2)
+            return 0;
+
+        if (!SweepEvent.collinear(le1, le2)) {
+
+            // edges are not collinear
+            if (le1.samePoint(le2))
+                return le1.isBelow(le2.other.x, le2.other.y) ? -1 : 1;
+
+            if (le1.x == le2.x)
+                return le1.y < le2.y ? -1 : 1;
+
+            // compare against the edge that was inserted first,
+            // if the other edge starts on it, its right endpoint decides
+            if (compareEvents(le1, le2) > 0) {
+                SweepEvent p = le2.isCollinear(le1.x, le1.y) ? le1.other : le1;
+                return le2.isAbove(p.x, p.y) ? -1 : 1;
+            }
+
+            SweepEvent p = le1.isCollinear(le2.x, le2.y) ? le2.other : le2;
+            return le1.isBelow(p.x, p.y) ? -1 : 1;
+        }
+
+        // collinear edges
+        if (le1.samePoint(le2)) {
+            if (le1.operand != le2.operand)
+                return le1.operand < le2.operand ? -1 : 1;
+
+            return Integer.compare(le1.id, le2.id);
+        }
+
+        return compareEvents(le1, le2) > 0 ? 1 : -1;
+    }
+
+    /**
+     * @param inside predicate over operand bit sets that defines the region
+     * @return true if the region has any boundary, i.e. is not empty
+     */
+    boolean hasBoundary(LongPredicate inside) {
+        for (SweepEvent e : pieces) {
+            if (inside.test(e.below) != inside.test(e.above()))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @param inside predicate over operand bit sets that defines the region
+     * @return oriented rings of the region
+     */
+    List<double[]> extract(LongPredicate inside) {
+        CoordinateList edges = new CoordinateList(pieces.size() * 2);
+
+        for (SweepEvent e : pieces) {
+            boolean in = inside.test(e.above());
+
+            if (inside.test(e.below) == in)
+                continue;
+
+            // orient so that the region is on the left
+            if (in) {
+                edges.add(e.x, e.y);
+                edges.add(e.other.x, e.other.y);
+            } else {
+                edges.add(e.other.x, e.other.y);
+                edges.add(e.x, e.y);
+            }
+        }
+
+        return connect(edges);
+    }
+
+    /**
+     * Extracts every face of the overlay at once.
+     * Each edge piece bounds at most two faces, so this is linear in the number of pieces.
+     *
+     * @return oriented rings of each nonempty region, keyed by the set of operands containing it
+     */
+    Map<Long, List<double[]>> extractFaces() {
+        Map<Long, CoordinateList> edges = new HashMap<>();
+
+        for (SweepEvent e : pieces) {
+            long below = e.below;
+            long above = e.above();
+
+            if (below == above)
+                continue;
+
+            // orient so that each face is on the left
+            if (above != 0) {
+                CoordinateList list = edges.computeIfAbsent(above, label -> new CoordinateList());
+                list.add(e.x, e.y);
+                list.add(e.other.x, e.other.y);
+            }
+
+            if (below != 0) {
+                CoordinateList list = edges.computeIfAbsent(below, label -> new CoordinateList());
+                list.add(e.other.x, e.other.y);
+                list.add(e.x, e.y);
+            }
+        }
+
+        Map<Long, List<double[]>> faces = new HashMap<>();
+        edges.forEach((label, list) -> faces.put(label, connect(list)));
+        return faces;
+    }
+
+    /**
+     * Connects directed edges into closed rings.
+     *
+     * @param edges start and end point of each edge
+     * @return rings
+     */
+    static List<double[]> connect(CoordinateList edges) {
+        int numEdges = edges.size() / 2;
+
+        Integer[] order = new Integer[numEdges];
+        for (int i = 0; i < numEdges; i++)
+            order[i] = i;
+
+        // sort by start point so we can find the next edge with binary search
+        Arrays.sort(order, (i, j) -> comparePoints(edges, 2 * i, 2 * j));
+
+        boolean[] used = new boolean[numEdges];
+        List<double[]> rings = new ArrayList<>();
+        CoordinateList ring = new CoordinateList();
+
+        for (int k = 0; k < numEdges; k++) {
+            int first = order[k];
+            if (used[first])
+                continue;
+
+            used[first] = true;
+            ring.clear();
+
+            double startX = edges.getX(2 * first);
+            double startY = edges.getY(2 * first);
+            ring.add(startX, startY);
+
+            double x = edges.getX(2 * first + 1);
+            double y = edges.getY(2 * first + 1);
+
+            while (x != startX || y != startY) {
+                int next = findUnused(edges, order, used, x, y);
+
+                // should not happen unless rounding broke an edge chain
+                if (next < 0)
+                    break;
+
+                used[next] = true;
+                ring.add(x, y);
+
+                x = edges.getX(2 * next + 1);
+                y = edges.getY(2 * next + 1);
+            }
+
+            if (ring.size() >= 3)
+                rings.add(removeCollinear(ring));
+        }
+
+        return rings;
+    }
+
+    private static int comparePoints(CoordinateList points, int i, int j) {
+        int result = Double.compare(points.getX(i), points.getX(j));
+        return result != 0 ? result : Double.compare(points.getY(i), points.getY(j));
+    }
+
+    private static int findUnused(CoordinateList edges, Integer[] order, boolean[] used, double x, double y) {
+        int low = 0;
+        int high = order.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int index = 2 * order[mid];
+
+            double ex = edges.getX(index);
+            double ey = edges.getY(index);
+
+            if (ex < x || (ex == x && ey < y)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        for (int k = low; k < order.length; k++) {
+            int index = 2 * order[k];
+
+            if (edges.getX(index) != x || edges.getY(index) != y)
+                break;
+
+            if (!used[order[k]])
+                return order[k];
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return ring coordinates without vertices that lie exactly on a straight line
+     */
+    private static double[] removeCollinear(CoordinateList ring) {
+        int n = ring.size();
+        CoordinateList result = new CoordinateList(n);
+
+        for (int i = 0; i < n; i++) {
+            int prev = i == 0 ? n - 1 : i - 1;
+            int next = i == n - 1 ? 0 : i + 1;
+
+            double area = Segments.signedArea(ring.getX(prev), ring.getY(prev),
+                    ring.getX(i), ring.getY(i),
+                    ring.getX(next), ring.getY(next));
+
+            if (area != 0)
+                result.add(ring.getX(i), ring.getY(i));
+        }
+
+        return result.toArray();
+    }
+
+    /**
+     * Buckets vertices into cells of snap distance size.
+     */
+    private static final class VertexGrid {
+        private final Map<Long, List<double[]>> cells = new HashMap<>();
+
+        private static long key(long cx, long cy) {
+            return cx * 0x9E3779B97F4A7C15L + cy;
+        }
+
+        private static long cell(double v) {
+            return (long) Math.floor(v / SweepEvent.SNAP_DISTANCE);
+        }
+
+        /**
+         * @return a vertex within snap distance of x, y or the newly added x, y if there is none
+         */
+        double[] add(double x, double y) {
+            double[] vertex = find(x, y, SweepEvent.SNAP_DISTANCE);
+
+            if (vertex == null) {
+                vertex = new double[] { x, y };
+                cells.computeIfAbsent(key(cell(x), cell(y)), k -> new ArrayList<>()).add(vertex);
+            }
+
+            return vertex;
+        }
+
+        private double[] find(double x, double y, double distance) {
+            long cx = cell(x);
+            long cy = cell(y);
+
+            for (long i = cx - 1; i <= cx + 1; i++) {
+                for (long j = cy - 1; j <= cy + 1; j++) {
+                    List<double[]> list = cells.get(key(i, j));
+
+                    if (list == null)
+                        continue;
+
+                    for (double[] v : list) {
+                        if (Math.abs(v[0] - x) <= distance && Math.abs(v[1] - y) <= distance)
+                            return v;
+                    }
+                }
+            }
+
+            return null;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.jgrapht.UndirectedGraph;
 import org.jgrapht.graph.SimpleGraph;
 
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -41,23 +42,47 @@ public class CycleFinder<V, E> {
     }
 
     public List<GraphCycle<V, E>> computeCycles() {
+        this.buildAdjancyMatrix();
+
+        return computeCycles(vertexList, adjMatrix, (i, j) -> graph.getEdge(vertexList.get(i), vertexList.get(j)));
+    }
+
+    public List<List<V>> getAllCycles() {
+        this.buildAdjancyMatrix();
+
+        return findCycles(vertexList, adjMatrix);
+    }
+
+    /**
+     * Computes cycles of a graph given directly by its adjacency matrix,
+     * so that callers that already keep the graph in arrays need not copy it into jgrapht.
+     *
+     * @param vertices vertices in the order of matrix rows
+     * @param adjMatrix symmetric adjacency matrix
+     * @param edges edge between vertices with given indices
+     * @return cycles sorted by length
+     */
+    public static <V, E> List<GraphCycle<V, E>> computeCycles(List<V> vertices, boolean[][] adjMatrix,
+                                                             BiFunction<Integer, Integer, E> edges) {
+        Map<V, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < vertices.size(); i++) {
+            index.put(vertices.get(i), i);
+        }
+
         List<GraphCycle<V, E>> graphCycles = new ArrayList<>();
 
-        List<List<V> > cycles = getAllCycles();
+        List<List<V> > cycles = findCycles(vertices, adjMatrix);
 
         for (List<V> cycle : cycles) {
-            List<E> edges = new ArrayList<>();
+            List<E> cycleEdges = new ArrayList<>();
 
             for (int i = 0; i < cycle.size(); i++) {
                 int j = i + 1 < cycle.size() ? i + 1 : 0;
 
-                V v1 = cycle.get(i);
-                V v2 = cycle.get(j);
-
-                edges.add(graph.getEdge(v1, v2));
+                cycleEdges.add(edges.apply(index.get(cycle.get(i)), index.get(cycle.get(j))));
             }
 
-            graphCycles.add(new GraphCycle<V, E>(cycle, edges));
+            graphCycles.add(new GraphCycle<V, E>(cycle, cycleEdges));
         }
 
         Collections.sort(graphCycles, (c1, c2) -> c1.length() - c2.length());
@@ -65,12 +90,10 @@ public class CycleFinder<V, E> {
         return graphCycles;
     }
 
-    public List<List<V>> getAllCycles() {
-        this.buildAdjancyMatrix();
-
+    private static <V> List<List<V>> findCycles(List<V> vertices, boolean[][] adjMatrix) {
         @SuppressWarnings("unchecked")
-        V[] vertexArray = (V[]) this.vertexList.toArray();
-        ElementaryCyclesSearch ecs = new ElementaryCyclesSearch(this.adjMatrix, vertexArray);
+        V[] vertexArray = (V[]) vertices.toArray();
+        ElementaryCyclesSearch ecs = new ElementaryCyclesSearch(adjMatrix, vertexArray);
 
         @SuppressWarnings("unchecked")
         List<List<V>> cycles0 = ecs.getElementaryCycles();
@@ -112,7 +135,7 @@ public class CycleFinder<V, E> {
 
     /* Here repeated lists are those with the same elements, no matter the order,
      * and it is assumed that there are no repeated elements on any of the lists*/
-    private List<List<V>> removeRepeatedLists(List<List<V>> listOfLists) {
+    private static <V> List<List<V>> removeRepeatedLists(List<List<V>> listOfLists) {
         log.trace("Removing repeated cycles");
 
         return listOfLists.stream()
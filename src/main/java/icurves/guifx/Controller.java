@@ -7,6 +7,7 @@ import icurves.diagram.Curve;
 import icurves.diagram.DiagramCreator;
 import icurves.graph.EulerDualNode;
 import icurves.graph.MED;
+import icurves.graph.MEDGraph;
 import icurves.util.Examples;
 import javafx.application.Platform;
 import javafx.collections.MapChangeListener;
@@ -21,6 +22,7 @@ import javafx.scene.image.WritableImage;
 import javafx.scene.input.KeyCode;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
+import javafx.scene.shape.Polyline;
 import javafx.scene.shape.Shape;
 import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
@@ -368,15 +370,14 @@ public class Controller {
                 });
 
                 // draw MED edges
-                modifiedDual.getEdges().forEach(e -> {
-                    e.getCurve().setStroke(Color.RED);
-                    e.getCurve().setStrokeWidth(6);
-                    renderer.rootSceneGraph.getChildren().addAll(e.getCurve());
+                MEDGraph graph = modifiedDual.getGraph();
 
-//                    e.getCurve().setOnMouseClicked(event -> {
-//                        e.getCurve().setStroke(Color.YELLOW);
-//                    });
-                });
+                for (int e = 0; e < graph.numEdges(); e++) {
+                    Polyline edge = new Polyline(graph.edgePoints(e));
+                    edge.setStroke(Color.RED);
+                    edge.setStrokeWidth(6);
+                    renderer.rootSceneGraph.getChildren().addAll(edge);
+                }
             }
 
             // add shaded zones
@@ -1,13 +1,11 @@
 package icurves.guifx;
 
 import icurves.decomposition.DecompositionStrategyType;
+import icurves.geometry.RingPolygon;
 import javafx.fxml.FXML;
 import javafx.geometry.Point2D;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextField;
-import javafx.scene.shape.Rectangle;
-import math.geom2d.polygon.Polygon2D;
-import math.geom2d.polygon.SimplePolygon2D;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -23,19 +21,7 @@ public class SettingsController {
 
     public List<Point2D> debugPoints = new ArrayList<>();
 
-    public Polygon2D geomBBox = new SimplePolygon2D(new math.geom2d.Point2D(-10000.0, -10000.0),
-            new math.geom2d.Point2D(10000.0, -10000.0),
-            new math.geom2d.Point2D(10000.0, 10000.0),
-            new math.geom2d.Point2D(-10000.0, 10000.0));
-
-    public Rectangle fxBBox = createBBox();
-
-    private Rectangle createBBox() {
-        Rectangle r = new Rectangle(20000, 20000);
-        r.setTranslateX(-10000);
-        r.setTranslateY(-10000);
-        return r;
-    }
+    public RingPolygon ringBBox = RingPolygon.rectangle(-10000.0, -10000.0, 10000.0, 10000.0);
 
     @FXML
     private CheckBox cbParallel;
@@ -65,6 +51,16 @@ public class SettingsController {
         return Integer.parseInt(fieldSmoothFactor.getText());
     }
 
+    @FXML
+    private TextField fieldSimplifyTolerance;
+
+    /**
+     * @return error budget for simplifying polygons of new path curves, 0 to keep them as they are
+     */
+    public double getSimplifyTolerance() {
+        return Double.parseDouble(fieldSimplifyTolerance.getText());
+    }
+
     @FXML
     private TextField fieldMEDSize;
 
@@ -79,6 +75,26 @@ public class SettingsController {
         return cbShowMED.isSelected();
     }
 
+    @FXML
+    private CheckBox cbQuadtreeRouting;
+
+    /**
+     * @return true to route MED edges over a quadtree of cells, fine near region boundaries, instead of a uniform grid
+     */
+    public boolean useQuadtreeRouting() {
+        return cbQuadtreeRouting.isSelected();
+    }
+
+    @FXML
+    private CheckBox cbBidirectionalRouting;
+
+    /**
+     * @return true to route MED edges searching from both regions at once, on a uniform grid
+     */
+    public boolean useBidirectionalRouting() {
+        return cbBidirectionalRouting.isSelected();
+    }
+
     // TODO: hardcoded
     public DecompositionStrategyType getDecompType() {
         return DecompositionStrategyType.INNERMOST;
@@ -19,26 +19,73 @@ public class BasicRecomposer implements Recomposer {
     @NotNull
     @Override
     public List<RecompositionStep> recompose(List<? extends DecompositionStep> decompSteps) {
-        Map<AbstractBasicRegion, AbstractBasicRegion> matchedZones = new TreeMap<>(AbstractBasicRegion::compareTo);
+        List<RecompositionStep> result = new ArrayList<>(decompSteps.size());
 
-        int numSteps = decompSteps.size();
+        recomposeLazily(decompSteps).forEachRemaining(result::add);
 
-        List<RecompositionStep> result = new ArrayList<>(numSteps);
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Iterator<RecompositionStep> recomposeLazily(List<? extends DecompositionStep> decompSteps) {
+        return new RecompositionIterator(decompSteps);
+    }
+
+    /**
+     * Walks decomposition steps backwards and computes a single recomposition step
+     * per call to {@link #next()}.
+     * Only the previous step and matched zones are kept between calls.
+     */
+    private final class RecompositionIterator implements Iterator<RecompositionStep> {
+
+        private final List<? extends DecompositionStep> decompSteps;
+
+        private final Map<AbstractBasicRegion, AbstractBasicRegion> matchedZones = new TreeMap<>(AbstractBasicRegion::compareTo);
+
+        /**
+         * Index of the decomposition step to recompose next.
+         */
+        private int index;
+
+        private RecompositionStep previous = null;
 
-        for (int i = numSteps - 1; i >= 0; i--) {
-            if (i < numSteps - 1) {
-                result.add(recomposeStep(decompSteps.get(i), result.get(numSteps - 2 - i), matchedZones));
+        RecompositionIterator(List<? extends DecompositionStep> decompSteps) {
+            this.decompSteps = decompSteps;
+            this.index = decompSteps.size() - 1;
+
+            log.debug("Recomposition begin");
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index >= 0;
+        }
+
+        @Override
+        public RecompositionStep next() {
+            if (!hasNext())
+                throw new NoSuchElementException("No more recomposition steps");
+
+            DecompositionStep decompStep = decompSteps.get(index--);
+
+            if (previous == null) {
+                previous = recomposeFirstStep(decompStep, matchedZones);
             } else {
-                result.add(recomposeFirstStep(decompSteps.get(i), matchedZones));
+                previous = recomposeStep(decompStep, previous, matchedZones);
             }
-        }
 
-        log.info("Recomposition begin");
-        result.forEach(log::info);
-        log.trace("Matched zones: " + matchedZones);
-        log.info("Recomposition end");
+            if (log.isDebugEnabled()) {
+                log.debug(previous);
 
-        return result;
+                if (!hasNext()) {
+                    log.trace("Matched zones: {}", matchedZones);
+                    log.debug("Recomposition end");
+                }
+            }
+
+            return previous;
+        }
     }
 
     /**
@@ -88,7 +135,7 @@ public class BasicRecomposer implements Recomposer {
     protected RecompositionStep recomposeStep(DecompositionStep decompStep, RecompositionStep previous,
                                               Map<AbstractBasicRegion, AbstractBasicRegion> matchedZones) {
 
-        log.trace("Matched Zones: " + matchedZones);
+        log.trace("Matched Zones: {}", matchedZones);
 
         // find the resulting zones in the previous step got to
         List<AbstractBasicRegion> zonesToSplit = new ArrayList<>();
@@ -114,16 +161,16 @@ public class BasicRecomposer implements Recomposer {
             }
         }
 
-        log.trace("Matched Inverse: " + matched_inverse);
+        log.trace("Matched Inverse: {}", matched_inverse);
 
         Description from = previous.getTo();
 
         // zonesToSplit, from == in(k,D), D
 
-        log.debug("Recomposing curve: " + decompStep.removed());
-        log.debug("Zones to split (ORIGINAL): " + zonesToSplit);
+        log.debug("Recomposing curve: {}", decompStep.removed());
+        log.debug("Zones to split (ORIGINAL): {}", zonesToSplit);
 
-        log.debug("Zones to split (FIXED): " + zonesToSplit);
+        log.debug("Zones to split (FIXED): {}", zonesToSplit);
 
         // MAKE STEP
 
@@ -1,111 +1,320 @@
 package icurves.algorithm
 
-import icurves.algorithm.astar.AStarGrid
-import icurves.algorithm.astar.NodeState
+import icurves.algorithm.astar.GridAStar
+import icurves.algorithm.astar.NavQuadtree
 import icurves.diagram.BasicRegion
-import javafx.scene.shape.Polyline
-import math.geom2d.Point2D
-import math.geom2d.polygon.Polygons2D
+import icurves.geometry.CoordinateList
+import icurves.geometry.DistanceField
+import icurves.geometry.PolygonClipper
+import icurves.geometry.RingPolygon
+import icurves.geometry.SegmentRTree
+import icurves.util.LruCache
+import org.apache.logging.log4j.LogManager
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ForkJoinPool
+import java.util.stream.Collectors
 
 /**
- *
+ * Routes edges between centers of adjacent regions through the union of both regions.
+ * Routes only read immutable geometry and keep their search state per thread, so any number can run at once.
+ * Between MED rebuilds most regions keep their geometry, so routes are cached by the geometry of both regions.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 object EdgeRouter {
 
+    private val log = LogManager.getLogger(EdgeRouter::class.java)
+
     private val TILES = 25
 
-    fun route(region1: BasicRegion, region2: BasicRegion): Polyline {
+    /**
+     * Min quadtree cells across the smaller side of the bounds of both regions.
+     */
+    private val QUADTREE_CELLS = 100
 
-        val union = Polygons2D.union(region1.getPolygonShape(), region2.getPolygonShape())
+    /**
+     * Dedicated pool, so that routing does not compete with other work on the common pool.
+     */
+    private val routePool = ForkJoinPool(Runtime.getRuntime().availableProcessors())
 
+    private val CACHE_CAPACITY = 512
 
+    private val cache = LruCache<RouteKey, DoubleArray>(CACHE_CAPACITY)
 
-        val bbox = union.boundingBox()
+    /**
+     * Uniform grid last used by each thread, reused by the next route on that thread if it has the same size.
+     */
+    private val grids = ThreadLocal<GridAStar>()
 
-        val TILE_SIZE = (Math.min(bbox.width, bbox.height) / TILES).toInt()
+    /**
+     * Geometry of a route, read from regions on the calling thread, since region geometry is computed lazily.
+     */
+    private class Route(region1: BasicRegion, region2: BasicRegion) {
+        val polygon1 = region1.polygon
+        val polygon2 = region2.polygon
 
-        val grid = AStarGrid(bbox.width.toInt() / TILE_SIZE, bbox.height.toInt() / TILE_SIZE)
+        val x1 = region1.center.x
+        val y1 = region1.center.y
+        val x2 = region2.center.x
+        val y2 = region2.center.y
+
+        val abRegion1 = region1.abRegion
+        val abRegion2 = region2.abRegion
+    }
 
+    /**
+     * Geometry of both regions and the routing mode, everything a route depends on.
+     * Polygons are compared by their coordinates, since regions rebuilt from unchanged curves get new polygon objects.
+     */
+    private class RouteKey(route: Route, val quadtree: Boolean, val bidirectional: Boolean) {
+        val polygon1 = route.polygon1
+        val polygon2 = route.polygon2
 
+        val centers = doubleArrayOf(route.x1, route.y1, route.x2, route.y2)
 
-        println("Grid size: ${grid.width}x${grid.height} Tile size: $TILE_SIZE")
+        private val hash: Int
 
+        init {
+            var h = Arrays.hashCode(centers)
+            h = 31 * h + hash(polygon1)
+            h = 31 * h + hash(polygon2)
+            h = 31 * h + quadtree.hashCode()
+            h = 31 * h + bidirectional.hashCode()
 
+            hash = h
+        }
 
+        private fun hash(polygon: RingPolygon): Int {
+            var h = polygon.numRings()
 
-        val boundary = union.boundary()
+            for (i in 0..polygon.numRings() - 1) {
+                h = 31 * h + Arrays.hashCode(polygon.ring(i))
+            }
 
-        // signed, so - if inside
-        val maxDistance: Double = try {
-            -Math.min(boundary.signedDistance(region1.center.x, region1.center.y), boundary.signedDistance(region2.center.x, region2.center.y))
-        } catch (e: Exception) {
-            1000.0
+            return h
         }
 
-        for (y in 0 until grid.height) {
-            for (x in 0 until grid.width) {
-                val tileCenter = Point2D(x.toDouble() * TILE_SIZE + TILE_SIZE / 2 + bbox.minX, y.toDouble() * TILE_SIZE + TILE_SIZE / 2 + bbox.minY)
+        private fun same(polygon: RingPolygon, other: RingPolygon): Boolean {
+            if (polygon === other)
+                return true
+
+            if (polygon.numRings() != other.numRings())
+                return false
+
+            return (0..polygon.numRings() - 1).all { Arrays.equals(polygon.ring(it), other.ring(it)) }
+        }
+
+        override fun equals(other: Any?) = other is RouteKey && hash == other.hash
+                && quadtree == other.quadtree && bidirectional == other.bidirectional
+                && Arrays.equals(centers, other.centers)
+                && same(polygon1, other.polygon1) && same(polygon2, other.polygon2)
+
+        override fun hashCode() = hash
+    }
+
+    /**
+     * @return number of routes reused from the cache
+     */
+    fun cacheHits() = cache.hits()
+
+    /**
+     * @return number of routes that had to be computed
+     */
+    fun cacheMisses() = cache.misses()
+
+    /**
+     * @param quadtree route over a quadtree of cells, fine near region boundaries, instead of a uniform grid,
+     * falling back to the uniform grid if the quadtree finds no route
+     * @param bidirectional search from both regions at once, only used on a uniform grid
+     * @return packed polyline coordinates from center of [region1] to center of [region2] through routed cells,
+     * or null if no cells could be routed through, the returned array must not be modified
+     */
+    fun route(region1: BasicRegion, region2: BasicRegion, quadtree: Boolean = true, bidirectional: Boolean = false): DoubleArray? {
+        return route(Route(region1, region2), quadtree, bidirectional)
+    }
+
+    /**
+     * Routes all [pairs] of regions as one batch, on the routing pool if [parallel].
+     * Results are only handed back once every route is done.
+     *
+     * @return packed polyline coordinates of each pair in order, null for pairs that could not be routed,
+     * the returned arrays must not be modified
+     */
+    fun routeAll(pairs: List<Pair<BasicRegion, BasicRegion>>, quadtree: Boolean, bidirectional: Boolean, parallel: Boolean): List<DoubleArray?> {
+        val routes = pairs.map { Route(it.first, it.second) }
+
+        val results = if (!parallel || routes.size < 2) {
+            routes.map { route(it, quadtree, bidirectional) }
+        } else {
+            routePool.submit(Callable {
+                Arrays.stream(routes.toTypedArray()).parallel()
+                        .map { route(it, quadtree, bidirectional) }
+                        .collect(Collectors.toList<DoubleArray?>())
+            }).get()
+        }
+
+        log.debug("Route cache hits: {} misses: {}", cacheHits(), cacheMisses())
+
+        return results
+    }
+
+    private fun route(route: Route, quadtree: Boolean, bidirectional: Boolean): DoubleArray? {
+        val key = RouteKey(route, quadtree, bidirectional)
+
+        val cached = cache.get(key)
+        if (cached != null)
+            return cached
+
+        val start = System.nanoTime()
+
+        val points = if (quadtree) routeOnQuadtree(route) ?: routeOnGrid(route, bidirectional) else routeOnGrid(route, bidirectional)
+
+        if (log.isTraceEnabled) {
+            log.trace("Routing ${route.abRegion1} - ${route.abRegion2} took: %.3f sec".format((System.nanoTime() - start) / 1000000000.0))
+        }
+
+        // failed routes abort diagram creation, so there is no point in keeping them
+        if (points != null)
+            cache.put(key, points)
+
+        return points
+    }
+
+    private fun routeOnQuadtree(route: Route): DoubleArray? {
+        val union = PolygonClipper.union(route.polygon1, route.polygon2)
 
-                val node = grid.getNode(x, y)
+        val cellSize = Math.min(union.maxX - union.minX, union.maxY - union.minY) / QUADTREE_CELLS
 
-                try {
-                    if (union.contains(tileCenter)) {
-                        val dist = -boundary.signedDistance(tileCenter).toInt()
+        // as on the uniform grid, walkable cells keep half a tile from the boundary
+        val tree = NavQuadtree(union, cellSize, cellSize * QUADTREE_CELLS / TILES / 2)
 
-                        if (dist < TILE_SIZE) {
-                            node.state = NodeState.NOT_WALKABLE
-                            continue
-                        }
+        log.trace("Quadtree leaves: {} Cell size: {}", tree.numLeaves(), cellSize)
 
+        val start = tree.nearestLeaf(route.x1, route.y1)
+        val target = tree.nearestLeaf(route.x2, route.y2)
 
-                        node.state = NodeState.WALKABLE
-                        //node.gCost = 100000 - dist * 1000
-                        node.gCost = ((2 - dist / maxDistance) * 2500).toInt()
+        val maxDistance = Math.max(if (start >= 0) tree.distance(start) else 0.0, if (target >= 0) tree.distance(target) else 0.0)
+                .let { if (it > 0) it else 1000.0 }
 
-                        if (node.gCost < 0) {
-                            println("Distance: $dist, gCost: ${node.gCost}")
+        for (leaf in 0..tree.numLeaves() - 1) {
+            tree.setCost(leaf, Math.max(0, ((2 - tree.distance(leaf) / maxDistance) * 2500).toInt()))
+        }
+
+        val path = tree.findPath(route.x1, route.y1, route.x2, route.y2)
+
+        log.trace("Edge routing A* expanded {} leaves, found: {}", tree.expanded, path.isNotEmpty())
+
+        // a direct line is what routing was meant to replace
+        if (path.size <= 2)
+            return null
+
+        return doubleArrayOf(route.x1, route.y1) + path
+    }
+
+    private fun routeOnGrid(route: Route, bidirectional: Boolean): DoubleArray? {
+
+        val polygon1 = route.polygon1
+        val polygon2 = route.polygon2
 
-                            node.gCost = 0
-                        }
+        val minX = Math.min(polygon1.minX, polygon2.minX)
+        val minY = Math.min(polygon1.minY, polygon2.minY)
+        val width = Math.max(polygon1.maxX, polygon2.maxX) - minX
+        val height = Math.max(polygon1.maxY, polygon2.maxY) - minY
 
+        val TILE_SIZE = (Math.min(width, height) / TILES).toInt()
+
+        val grid = grid(width.toInt() / TILE_SIZE, height.toInt() / TILE_SIZE)
+        grid.isBidirectional = bidirectional
+
+        log.trace("Grid size: {}x{} Tile size: {}", grid.width, grid.height, TILE_SIZE)
+
+        // regions do not overlap, so tiles inside either of them are inside their union
+        val field = DistanceField(listOf(polygon1, polygon2), minX, minY, TILE_SIZE.toDouble(), grid.width, grid.height)
+
+        val startX = ((route.x1 - minX) / TILE_SIZE).toInt()
+        val startY = ((route.y1 - minY) / TILE_SIZE).toInt()
+        val targetX = ((route.x2 - minX) / TILE_SIZE).toInt()
+        val targetY = ((route.y2 - minY) / TILE_SIZE).toInt()
+
+        val maxDistance = Math.max(field.distance(startX, startY), field.distance(targetX, targetY))
+                .let { if (it > 0) it else 1000.0 }
+
+        for (y in 0 until grid.height) {
+            for (x in 0 until grid.width) {
+                val dist = field.distance(x, y).toInt()
 
-                    } else {
-                        node.state = NodeState.NOT_WALKABLE
-                    }
-                } catch (e: Exception) {
-                    node.state = NodeState.NOT_WALKABLE
+                if (!field.isInside(x, y) || dist < TILE_SIZE) {
+                    grid.setWalkable(x, y, false)
+                    continue
                 }
+
+                grid.setWalkable(x, y, true)
+                //node.gCost = 100000 - dist * 1000
+                grid.setCost(x, y, Math.max(0, ((2 - dist / maxDistance) * 2500).toInt()))
             }
         }
 
-        val startX = (region1.center.x - bbox.minX) / TILE_SIZE
-        val startY = (region1.center.y - bbox.minY) / TILE_SIZE
-        val targetX = (region2.center.x - bbox.minX) / TILE_SIZE
-        val targetY = (region2.center.y - bbox.minY) / TILE_SIZE
+        val path = grid.findPath(startX, startY, targetX, targetY)
 
-        println("$startX,$startY - $targetX,$targetY")
+        log.trace("Edge routing A* from {},{} to {},{} expanded {} tiles, found: {}",
+                startX, startY, targetX, targetY, grid.expanded, path.isNotEmpty())
 
-        val path = grid.getPath(startX.toInt(), startY.toInt(), targetX.toInt(), targetY.toInt())
+        // so that start and end vertices are exactly the same as requested
+        val points = CoordinateList()
+        points.add(route.x1, route.y1)
 
-        if (path.isEmpty()) {
-            println("Edge routing A* not found")
+        for (i in 0..path.size - 3 step 2) {
+            points.add(path[i] * TILE_SIZE + TILE_SIZE / 2.0 + minX, path[i + 1] * TILE_SIZE + TILE_SIZE / 2.0 + minY)
         }
 
-        // so that start and end vertices are exactly the same as requested
-        val points = arrayListOf<Double>(region1.center.x, region1.center.y)
+        points.add(route.x2, route.y2)
 
-        points.addAll(path.map { arrayListOf(it.x, it.y) }
-                .flatten()
-                .mapIndexed { index, value -> value.toDouble() * TILE_SIZE + TILE_SIZE / 2 + (if (index % 2 == 0) bbox.minX else bbox.minY) }
-                .dropLast(2)
-        )
+        if (points.size() == 2)
+            return null
 
-        // so that start and end vertices are exactly the same as requested
-        points.add(region2.center.x)
-        points.add(region2.center.y)
+        // as on the quadtree, straight steps keep half a tile from the boundary
+        val boundary = SegmentRTree(listOf(PolygonClipper.union(polygon1, polygon2)), listOf(Unit))
+
+        return pull(points, boundary, TILE_SIZE / 2.0)
+    }
+
+    /**
+     * Drops every vertex whose neighbours in the path see each other, i.e. the segment between them
+     * stays at least [clearance] away from [boundary].
+     */
+    private fun pull(points: CoordinateList, boundary: SegmentRTree<*>, clearance: Double): DoubleArray {
+        val pulled = CoordinateList()
+        pulled.add(points.getX(0), points.getY(0))
+
+        var anchor = 0
+        while (anchor < points.size() - 1) {
+            var next = anchor + 1
+
+            while (next < points.size() - 1 && boundary.distance(points.getX(anchor), points.getY(anchor),
+                    points.getX(next + 1), points.getY(next + 1)) >= clearance)
+                next++
+
+            pulled.add(points.getX(next), points.getY(next))
+            anchor = next
+        }
+
+        return pulled.toArray()
+    }
+
+    /**
+     * Every cell is set before a search, so a grid of the same size can be reused as is.
+     *
+     * @return grid of this thread, replaced if it is not of the given size
+     */
+    private fun grid(width: Int, height: Int): GridAStar {
+        var grid = grids.get()
+
+        if (grid == null || grid.width != width || grid.height != height) {
+            grid = GridAStar(width, height)
+            grids.set(grid)
+        }
 
-        return Polyline(*points.toDoubleArray())
+        return grid
     }
 }
\ No newline at end of file
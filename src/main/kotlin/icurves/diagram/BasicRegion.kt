@@ -3,14 +3,17 @@ package icurves.diagram
 import icurves.CurvesApp
 import icurves.description.AbstractBasicRegion
 import icurves.description.AbstractCurve
+import icurves.geometry.PolygonClipper
+import icurves.geometry.RingPolygon
+import icurves.geometry.SegmentIndex
+import icurves.util.Converter
 import icurves.util.Polylabel
 import javafx.geometry.Point2D
-import javafx.scene.shape.Rectangle
 import javafx.scene.shape.Shape
 import math.geom2d.polygon.Polygon2D
-import math.geom2d.polygon.Polygons2D
-import math.geom2d.polygon.SimplePolygon2D
+import org.apache.logging.log4j.LogManager
 import java.util.*
+import java.util.concurrent.ForkJoinPool
 
 /**
  * A basic region, br (element of BR), in an Euler diagram.
@@ -27,97 +30,196 @@ class BasicRegion(
         /**
          * Curves within this zone.
          */
-        val containingCurves: MutableList<Curve>,
+        val containingCurves: List<Curve>,
 
         /**
          * Curves outside of this zone.
          */
-        val excludingCurves: MutableList<Curve>) {
+        val excludingCurves: List<Curve>) {
 
-    constructor(abRegion: AbstractBasicRegion, curveToContour: Map<AbstractCurve, Curve>) : this(abRegion, arrayListOf(), ArrayList(curveToContour.values)) {
-        for (curve in abRegion.inSet) {
-            val contour = curveToContour[curve]!!
+    companion object {
+        private val log = LogManager.getLogger(BasicRegion::class.java)
 
-            excludingCurves.remove(contour)
-            containingCurves.add(contour)
+        /**
+         * Dedicated pool, so that center computation does not compete with other work on the common pool.
+         */
+        private val centerPool = ForkJoinPool(Runtime.getRuntime().availableProcessors())
+
+        /**
+         * Computes visual centers of all [regions] that do not have one yet, in parallel.
+         */
+        @JvmStatic fun computeCenters(regions: List<BasicRegion>) {
+            val pending = regions.filter { !it.lazyCenter.isInitialized() }
+
+            log.trace("Computing {} of {} centers", pending.size, regions.size)
+
+            centerPool.submit {
+                Arrays.stream(pending.toTypedArray()).parallel().forEach { region ->
+                    val start = System.nanoTime()
+
+                    region.center
+
+                    if (log.isTraceEnabled) {
+                        log.trace("Center of $region took: %.3f sec".format((System.nanoTime() - start) / 1000000000.0))
+                    }
+                }
+            }.get()
         }
     }
 
-    fun getShape(): Shape {
-        var shape: Shape = CurvesApp.getInstance().settings.fxBBox
+    constructor(abRegion: AbstractBasicRegion, curveToContour: Map<AbstractCurve, Curve>) : this(abRegion,
+            abRegion.inSet.map { curveToContour[it]!! },
+            curveToContour.filterKeys { it !in abRegion.inSet }.values.toList())
+
+    /**
+     * Constructs a basic region whose areas are already known, i.e. faces of arrangements.
+     *
+     * @param ringPolygon area of this zone bounded by curve ring polygons
+     * @param polygon area of this zone bounded by curve polygons
+     */
+    constructor(abRegion: AbstractBasicRegion, curveToContour: Map<AbstractCurve, Curve>,
+                ringPolygon: RingPolygon, polygon: RingPolygon) : this(abRegion, curveToContour) {
+        cachedRingPolygon = ringPolygon
+        cachedPolygon = polygon
+
+        RegionGeometryCache.put(this, ringPolygon, polygon)
+    }
 
-        for (curve in containingCurves) {
-            shape = Shape.intersect(shape, curve.getShape())
+    private constructor(abRegion: AbstractBasicRegion, containingCurves: List<Curve>, excludingCurves: List<Curve>,
+                        ringPolygon: RingPolygon, polygon: RingPolygon) : this(abRegion, containingCurves, excludingCurves) {
+        cachedRingPolygon = ringPolygon
+        cachedPolygon = polygon
+
+        RegionGeometryCache.put(this, ringPolygon, polygon)
+    }
+
+    /**
+     * Constructs a copy of [region] that also excludes [curve], with all values computed so far.
+     * The copy is not known to [RegionGeometryCache], its areas are carried over directly.
+     */
+    private constructor(region: BasicRegion, curve: Curve) : this(region.abRegion, region.containingCurves, region.excludingCurves + curve) {
+        cachedRingPolygon = region.cachedRingPolygon
+        cachedPolygon = region.cachedPolygon
+
+        if (region.lazyCenter.isInitialized()) {
+            carriedCenter = region.center
+            lazyCenter.value
         }
+    }
 
-        for (curve in excludingCurves) {
-            shape = Shape.subtract(shape, curve.getShape())
+    private var cachedRingPolygon: RingPolygon? = null
+
+    /**
+     * Area of this zone, computed by the clipping kernel from curve ring polygons unless given at construction
+     * or already known to [RegionGeometryCache].
+     */
+    val ringPolygon: RingPolygon
+        get() {
+            if (cachedRingPolygon == null)
+                cachedRingPolygon = RegionGeometryCache.ringPolygon(this) { computeRingPolygon { it.ringPolygon } }
+
+            return cachedRingPolygon!!
         }
 
-        return shape
-    }
+    private var cachedPolygon: RingPolygon? = null
 
-    fun intersects(shape: Shape): Boolean {
-        return !Shape.intersect(getShape(), shape).layoutBounds.isEmpty
-    }
+    /**
+     * Area of this zone bounded by (coarser) curve polygons, used for centers.
+     */
+    val polygon: RingPolygon
+        get() {
+            if (cachedPolygon == null)
+                cachedPolygon = RegionGeometryCache.polygon(this) { computeRingPolygon { it.packedPolygon } }
 
-    val center by lazy { computeVisualCentre() }
+            return cachedPolygon!!
+        }
 
-    private fun computeVisualCentre(): Point2D {
-        if (polygonShape == null)
-            polygonShape = getPolygonShape()
+    private fun computeRingPolygon(curvePolygon: (Curve) -> RingPolygon): RingPolygon {
+        var polygon = CurvesApp.getInstance().settings.ringBBox
 
-        return Polylabel.findCenter(polygonShape!!)
-    }
+        for (curve in containingCurves) {
+            polygon = PolygonClipper.intersection(polygon, curvePolygon(curve))
+        }
 
-    private var polygonShape: Polygon2D? = null
+        for (curve in excludingCurves) {
+            polygon = PolygonClipper.difference(polygon, curvePolygon(curve))
+        }
 
-    fun getPolygonShape(): Polygon2D {
-        polygonShape = CurvesApp.getInstance().settings.geomBBox
+        return polygon
+    }
+
+    /**
+     * Splits this zone by a newly added curve.
+     * If the curve does not pass through this zone, the zone is carried over with its lazily computed values,
+     * so they are not lost.
+     *
+     * @return nonempty parts of this zone inside and outside of [curve]
+     */
+    fun split(curve: Curve): List<BasicRegion> {
+        val curveRingPolygon = curve.ringPolygon
+        val curvePolygon = curve.packedPolygon
+
+        if (!PolygonClipper.intersects(ringPolygon, curveRingPolygon) && !PolygonClipper.intersects(polygon, curvePolygon)) {
+            return listOf(BasicRegion(this, curve))
+        }
 
-        containingCurves.map({ c -> c.getPolygon() }).forEach { p -> polygonShape = Polygons2D.intersection(polygonShape!!, p) }
+        val inside = BasicRegion(abRegion.moveInside(curve.abstractCurve), containingCurves + curve, excludingCurves,
+                PolygonClipper.intersection(ringPolygon, curveRingPolygon), PolygonClipper.intersection(polygon, curvePolygon))
 
-        excludingCurves.map({ c -> c.getPolygon() }).forEach { p -> polygonShape = Polygons2D.difference(polygonShape!!, p) }
+        val outside = BasicRegion(abRegion, containingCurves, excludingCurves + curve,
+                PolygonClipper.difference(ringPolygon, curveRingPolygon), PolygonClipper.difference(polygon, curvePolygon))
 
-        return polygonShape!!
+        return listOf(inside, outside).filter { !it.ringPolygon.isEmpty() || !it.polygon.isEmpty() }
     }
 
-    fun isTopologicallyAdjacent(other: BasicRegion): Boolean {
-        if (abRegion.getStraddledContour(other.abRegion).isPresent) {
-            val shape2 = other.getShape()
+    /**
+     * @return a new JavaFX view of this zone for rendering
+     */
+    fun getShape(): Shape = Converter.toPathFX(ringPolygon)
 
-            shape2.setTranslateX(shape2.getTranslateX() - 5)
+    fun intersects(other: RingPolygon): Boolean {
+        return PolygonClipper.intersects(ringPolygon, other)
+    }
 
-            if (intersects(shape2)) {
-                // put it back
-                shape2.setTranslateX(shape2.getTranslateX() + 5)
-                return true
-            }
+    /**
+     * Center of the zone this one was carried over from, if it was computed.
+     */
+    private var carriedCenter: Point2D? = null
 
-            shape2.setTranslateX(shape2.getTranslateX() + 10)
+    private val lazyCenter = lazy { carriedCenter ?: computeVisualCentre() }
 
-            if (intersects(shape2)) {
-                shape2.setTranslateX(shape2.getTranslateX() - 5)
-                return true
-            }
+    /**
+     * Visual center of this zone, computed once per zone.
+     * Zones that new curves do not pass through are kept between steps, so their centers are reused.
+     */
+    val center by lazyCenter
 
-            shape2.setTranslateX(shape2.getTranslateX() - 5)
-            shape2.setTranslateY(shape2.getTranslateY() - 5)
+    private fun computeVisualCentre(): Point2D {
+        return Polylabel.findCenter(polygon)
+    }
 
-            if (intersects(shape2)) {
-                shape2.setTranslateY(shape2.getTranslateY() + 5)
-                return true
-            }
+    private var polygonShape: Polygon2D? = null
 
-            shape2.setTranslateY(shape2.getTranslateY() + 10)
+    fun getPolygonShape(): Polygon2D {
+        if (polygonShape == null)
+            polygonShape = Converter.toPolygon2D(polygon)
 
-            if (intersects(shape2)) {
-                shape2.setTranslateY(shape2.getTranslateY() - 5)
-                return true
-            }
-        }
+        return polygonShape!!
+    }
 
-        return false
+    /**
+     * Index over edges of [ringPolygon], built on first adjacency query.
+     */
+    private val boundaryIndex by lazy { SegmentIndex(ringPolygon) }
+
+    /**
+     * Two zones are adjacent if they differ by one curve and share a piece of boundary of positive length,
+     * which then necessarily lies on that curve.
+     * Neither zone is modified, so this is safe to call in parallel.
+     */
+    fun isTopologicallyAdjacent(other: BasicRegion): Boolean {
+        return abRegion.getStraddledContour(other.abRegion).isPresent
+                && boundaryIndex.sharesBoundary(other.ringPolygon)
     }
 
     fun toDebugString(): String {
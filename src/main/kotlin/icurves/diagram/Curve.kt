@@ -1,33 +1,45 @@
 package icurves.diagram
 
 import icurves.description.AbstractCurve
+import icurves.geometry.RingPolygon
+import icurves.util.Converter
 import javafx.scene.shape.Shape
 import math.geom2d.polygon.Polygon2D
 
 /**
  * A closed curve, c (element of C).
+ * Curves do not change once created, so derived geometry is computed once
+ * and can be shared between threads.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 abstract class Curve(val abstractCurve: AbstractCurve) {
 
-//    /**
-//     * @return a curve model for computational geometry.
-//     */
-//    val polygon by lazy { computePolygon() }
-//
-//    /**
-//     * @return a bitmap view for rendering.
-//     */
-//    val shape by lazy { computeShape() }
+    /**
+     * A curve model for computational geometry.
+     */
+    val polygon: Polygon2D by lazy { computePolygon() }
 
-    fun getPolygon() = computePolygon()
+    /**
+     * [polygon] as packed coordinates, with bounds and edges, for the polygon clipping kernel.
+     */
+    val packedPolygon: RingPolygon by lazy { Converter.toRingPolygon(polygon) }
 
+    /**
+     * A (finer) curve model for the polygon clipping kernel.
+     */
+    val ringPolygon: RingPolygon by lazy { computeRingPolygon() }
+
+    /**
+     * @return a new bitmap view for rendering, since a JavaFX node can only be in one scene graph
+     */
     fun getShape() = computeShape()
 
-    abstract fun computePolygon(): Polygon2D
+    protected abstract fun computePolygon(): Polygon2D
+
+    protected open fun computeRingPolygon(): RingPolygon = packedPolygon
 
-    abstract fun computeShape(): Shape
+    protected abstract fun computeShape(): Shape
 
     override fun toString() = abstractCurve.toString()
-}
\ No newline at end of file
+}
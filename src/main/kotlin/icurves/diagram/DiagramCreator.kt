@@ -6,7 +6,8 @@ import icurves.description.AbstractCurve
 import icurves.description.Description
 import icurves.diagram.curve.CircleCurve
 import icurves.diagram.curve.PathCurve
-import icurves.graph.EulerDualEdge
+import icurves.geometry.Arrangement
+import icurves.geometry.RingPolygon
 import icurves.graph.EulerDualNode
 import icurves.graph.GraphCycle
 import icurves.graph.MED
@@ -57,6 +58,11 @@ class DiagramCreator(val settings: SettingsController) {
      */
     private lateinit var basicRegions: List<BasicRegion>
 
+    /**
+     * Number of curves (in curveToContour order) that basic regions have been split by.
+     */
+    private var numSplitCurves = 0
+
     val shadedRegions = ArrayList<BasicRegion>()
 
     lateinit var modifiedDual: MED
@@ -68,10 +74,12 @@ class DiagramCreator(val settings: SettingsController) {
 
         // all we need is decomposition; recomposition is almost no-op
         val dSteps = DecomposerFactory.newDecomposer(settings.decompType).decompose(description)
-        val rSteps = RecomposerFactory.newRecomposer().recompose(dSteps)
 
-        for (i in rSteps.indices) {
-            val data = rSteps[i].addedCurveData
+        // steps are computed one at a time, so we can start embedding straight away
+        val rSteps = RecomposerFactory.newRecomposer().recomposeLazily(dSteps)
+
+        for ((i, step) in rSteps.withIndex()) {
+            val data = step.addedCurveData
 
             val curve = when (i) {
 
@@ -79,7 +87,7 @@ class DiagramCreator(val settings: SettingsController) {
                 0 -> CircleCurve(data.addedCurve, BASE_CURVE_RADIUS, BASE_CURVE_RADIUS, BASE_CURVE_RADIUS)
                 1 -> CircleCurve(data.addedCurve, BASE_CURVE_RADIUS * 2, BASE_CURVE_RADIUS, BASE_CURVE_RADIUS)
                 2 -> CircleCurve(data.addedCurve, BASE_CURVE_RADIUS * 1.5, BASE_CURVE_RADIUS * 2, BASE_CURVE_RADIUS)
-                else -> embedCurve(data)
+                else -> simplify(embedCurve(data))
             }
 
             curveToContour[data.addedCurve] = curve
@@ -91,8 +99,9 @@ class DiagramCreator(val settings: SettingsController) {
             }
         }
 
+        createBasicRegions()
+
         if (settings.showMED()) {
-            createBasicRegions()
             createMED()
         }
 
@@ -100,7 +109,7 @@ class DiagramCreator(val settings: SettingsController) {
 
         val shaded = abstractRegions.minus(description.zones)
 
-        shadedRegions.addAll(shaded.map { BasicRegion(it, curveToContour) })
+        shadedRegions.addAll(shaded.map { abRegionToBasicRegion[it]!! })
     }
 
     /**
@@ -152,6 +161,22 @@ class DiagramCreator(val settings: SettingsController) {
         return curve
     }
 
+    /**
+     * Simplifies polygons of path curves, if enabled in settings, before they are used for basic regions.
+     */
+    private fun simplify(curve: Curve): Curve {
+        if (curve !is PathCurve || settings.simplifyTolerance <= 0)
+            return curve
+
+        Profiler.start("Simplifying")
+        val simplified = curve.simplify(settings.simplifyTolerance, curveToContour.values.toList())
+        Profiler.end("Simplifying")
+
+        log.debug("Simplified $curve from ${curve.ringPolygon.numVertices()} to ${simplified.ringPolygon.numVertices()} vertices")
+
+        return simplified
+    }
+
     private fun embedDoublePiercing(abstractCurve: AbstractCurve, regions: List<BasicRegion>): Curve {
         val piercingData = PiercingData(regions, basicRegions)
 
@@ -162,7 +187,7 @@ class DiagramCreator(val settings: SettingsController) {
         return CircleCurve(abstractCurve, piercingData.center!!.x, piercingData.center.y, piercingData.radius / 2)
     }
 
-    private fun smooth(cycle: GraphCycle<EulerDualNode, EulerDualEdge>): Path {
+    private fun smooth(cycle: GraphCycle<EulerDualNode, Int>): Path {
         Profiler.start("Smoothing")
 
         //val pathSegments = BezierApproximation.smoothPath2(cycle.nodes.map { it.point }.toMutableList(), settings.smoothFactor)
@@ -231,18 +256,72 @@ class DiagramCreator(val settings: SettingsController) {
         return newPath
     }
 
+    /**
+     * Overlays all current curves in a single sweep, so that every basic region is computed at once.
+     * Curve polygons are coarser than ring polygons, hence a separate sweep.
+     * Regions that are not (yet) abstract regions are kept too, since new curves may split them into ones that are.
+     */
+    private fun createAllBasicRegions(): List<BasicRegion> {
+        val curves = curveToContour.values
+
+        val rings = Arrangement(curves.map { it.ringPolygon }, settings.ringBBox)
+        val polygons = Arrangement(curves.map { it.packedPolygon }, settings.ringBBox)
+
+        val labels = HashSet<Long>(rings.getLabels())
+        labels.addAll(polygons.getLabels())
+        labels.addAll(abstractRegions.map { labelOf(it) })
+
+        return labels.map {
+            BasicRegion(abRegionOf(it), curveToContour, rings.getFace(it), polygons.getFace(it))
+        }
+    }
+
+    /**
+     * @return arrangement face label of [abRegion], bit i is set if it is inside i-th curve
+     */
+    private fun labelOf(abRegion: AbstractBasicRegion): Long {
+        var label = 0L
+
+        for ((i, abstractCurve) in curveToContour.keys.withIndex()) {
+            if (abRegion.contains(abstractCurve))
+                label = label or (1L shl i)
+        }
+
+        return label
+    }
+
+    private fun abRegionOf(label: Long): AbstractBasicRegion {
+        return AbstractBasicRegion(curveToContour.keys.filterIndexed { i, curve -> label and (1L shl i) != 0L }.toSet())
+    }
+
+    /**
+     * Basic regions are built from scratch the first time.
+     * After that, only regions that new curves pass through are split,
+     * all other basic regions are kept.
+     */
     private fun createBasicRegions() {
+        if (numSplitCurves == 0) {
+            createAllBasicRegions().forEach { abRegionToBasicRegion[it.abRegion] = it }
+        } else {
+            curveToContour.values.drop(numSplitCurves).forEach { splitBasicRegions(it) }
+        }
+
+        numSplitCurves = curveToContour.size
+
         basicRegions = abstractRegions.map {
-            val br = BasicRegion(it, curveToContour)
-            abRegionToBasicRegion[it] = br
-            return@map br
+            abRegionToBasicRegion.getOrPut(it) { BasicRegion(it, curveToContour, RingPolygon.EMPTY, RingPolygon.EMPTY) }
         }
     }
 
+    private fun splitBasicRegions(curve: Curve) {
+        val regions = abRegionToBasicRegion.values.flatMap { it.split(curve) }
+
+        abRegionToBasicRegion.clear()
+        regions.forEach { abRegionToBasicRegion[it.abRegion] = it }
+    }
+
     /**
      * Needs to be generated every time because curves change basic regions.
-     *
-     * TODO: we could potentially only compute br that have been changed by the curve
      */
     private fun createMED() {
         log.trace("Creating MED")
@@ -269,15 +348,11 @@ class DiagramCreator(val settings: SettingsController) {
 
     /**
      * Does curve segment [q] only pass through [actual] curve.
+     *
+     * @param q packed polyline coordinates
      */
-    fun isOK(q: Shape, actual: AbstractCurve, curves: List<Curve>): Boolean {
-        val list = curves.filter {
-            val s = it.computeShape()
-            s.fill = null
-            s.stroke = Color.BROWN
-
-            !Shape.intersect(s, q).getLayoutBounds().isEmpty()
-        }
+    fun isOK(q: DoubleArray, actual: AbstractCurve, curves: List<Curve>): Boolean {
+        val list = curves.filter { it.ringPolygon.boundaryIntersects(q) }
 
         if (list.size != 1)
             return false
@@ -287,16 +362,10 @@ class DiagramCreator(val settings: SettingsController) {
 
     /**
      * Does curve segment [q] intersect with any other curves.
+     *
+     * @param q packed polyline coordinates
      */
-    fun intersects(q: Shape, curves: List<Curve>): Boolean {
-        val list = curves.filter {
-            val s = it.computeShape()
-            s.fill = null
-            s.stroke = Color.BROWN
-
-            !Shape.intersect(s, q).getLayoutBounds().isEmpty()
-        }
-
-        return list.isNotEmpty()
+    fun intersects(q: DoubleArray, curves: List<Curve>): Boolean {
+        return curves.any { it.ringPolygon.boundaryIntersects(q) }
     }
 }
\ No newline at end of file
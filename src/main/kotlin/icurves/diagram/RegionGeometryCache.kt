@@ -0,0 +1,52 @@
+package icurves.diagram
+
+import icurves.description.AbstractBasicRegion
+import icurves.geometry.RingPolygon
+import icurves.util.LruCache
+import java.util.*
+
+/**
+ * Areas of basic regions, shared by all BasicRegion objects of the same zone.
+ * Curves never change once created, so the curve objects themselves identify their versions:
+ * a zone is keyed by its abstract basic region and the identities of all curves it was built from.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+object RegionGeometryCache {
+
+    private val CAPACITY = 1024
+
+    private val ringPolygons = LruCache<RegionKey, RingPolygon>(CAPACITY)
+
+    private val polygons = LruCache<RegionKey, RingPolygon>(CAPACITY)
+
+    private class RegionKey(region: BasicRegion) {
+        val abRegion: AbstractBasicRegion = region.abRegion
+
+        val curves: Set<Curve>
+
+        init {
+            // curves do not override equals(), so this compares identities
+            curves = HashSet(region.containingCurves)
+            curves.addAll(region.excludingCurves)
+        }
+
+        override fun equals(other: Any?) = other is RegionKey && abRegion == other.abRegion && curves == other.curves
+
+        override fun hashCode() = 31 * abRegion.hashCode() + curves.hashCode()
+    }
+
+    fun ringPolygon(region: BasicRegion, compute: () -> RingPolygon) = ringPolygons.getOrPut(RegionKey(region), compute)
+
+    fun polygon(region: BasicRegion, compute: () -> RingPolygon) = polygons.getOrPut(RegionKey(region), compute)
+
+    /**
+     * Records areas of [region] that are already known.
+     */
+    fun put(region: BasicRegion, ringPolygon: RingPolygon, polygon: RingPolygon) {
+        val key = RegionKey(region)
+
+        ringPolygons.put(key, ringPolygon)
+        polygons.put(key, polygon)
+    }
+}
@@ -2,6 +2,7 @@ package icurves.diagram.curve
 
 import icurves.description.AbstractCurve
 import icurves.diagram.Curve
+import icurves.geometry.RingPolygon
 import icurves.util.Converter
 import javafx.scene.shape.Circle
 
@@ -13,9 +14,9 @@ import javafx.scene.shape.Circle
 class CircleCurve(
         abstractCurve: AbstractCurve,
 
-        var centerX: Double,
-        var centerY: Double,
-        var radius: Double) : Curve(abstractCurve) {
+        val centerX: Double,
+        val centerY: Double,
+        val radius: Double) : Curve(abstractCurve) {
 
     private val nudge = 0.1
 
@@ -23,16 +24,15 @@ class CircleCurve(
 
     fun getBigRadius() = radius + nudge
 
-    fun shift(x: Double, y: Double) {
-        centerX += x
-        centerY += y
-    }
+    /**
+     * @return this circle moved by x, y
+     */
+    fun shift(x: Double, y: Double) = CircleCurve(abstractCurve, centerX + x, centerY + y, radius)
 
-    fun scaleAboutZero(scale: Double) {
-        centerX *= scale
-        centerY *= scale
-        radius *= scale
-    }
+    /**
+     * @return this circle scaled about the origin
+     */
+    fun scaleAboutZero(scale: Double) = CircleCurve(abstractCurve, centerX * scale, centerY * scale, radius * scale)
 
     fun getLabelXPosition() = centerX + 0.8 * radius
 
@@ -49,4 +49,6 @@ class CircleCurve(
     override fun computeShape() = Circle(centerX, centerY, getBigRadius())
 
     override fun computePolygon() = Converter.circleToPolygon(this)
+
+    override fun computeRingPolygon(): RingPolygon = Converter.circleToRingPolygon(centerX, centerY, getBigRadius())
 }
\ No newline at end of file
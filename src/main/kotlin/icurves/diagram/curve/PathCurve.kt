@@ -2,11 +2,15 @@ package icurves.diagram.curve
 
 import icurves.description.AbstractCurve
 import icurves.diagram.Curve
+import icurves.geometry.BezierFlattener
+import icurves.geometry.CoordinateList
+import icurves.geometry.PolygonSimplifier
+import icurves.geometry.RingPolygon
+import icurves.geometry.SegmentRTree
+import icurves.util.Converter
 import javafx.scene.paint.Color
 import javafx.scene.shape.*
-import math.geom2d.Point2D
 import math.geom2d.polygon.Polygon2D
-import math.geom2d.polygon.SimplePolygon2D
 
 /**
  *
@@ -14,19 +18,43 @@ import math.geom2d.polygon.SimplePolygon2D
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 class PathCurve(abstractCurve: AbstractCurve,
-                val path: Path) : Curve(abstractCurve) {
+                val path: Path,
+
+                /**
+                 * Max distance between curved path elements and their polygon edges.
+                 */
+                val flatness: Double = PathCurve.DEFAULT_FLATNESS,
+
+                /**
+                 * Polygon to use instead of the flattened path, both for geometry and rendering, if simplified.
+                 */
+                private val simplifiedPolygon: RingPolygon? = null) : Curve(abstractCurve) {
+
+    companion object {
+        const val DEFAULT_FLATNESS = 0.5
+    }
 
     init {
-        path.elements.addAll(ClosePath())
+        if (path.elements.last() !is ClosePath)
+            path.elements.addAll(ClosePath())
+
         path.fill = Color.TRANSPARENT
     }
 
-    override fun computeShape(): Shape {
-        val bbox = Rectangle(10000.0, 10000.0)
-        bbox.translateX = -3000.0
-        bbox.translateY = -3000.0
+    /**
+     * @return a copy of this curve with the same path, whose polygons are simplified within [tolerance]
+     * so that they still cross [others] the same way
+     */
+    fun simplify(tolerance: Double, others: List<Curve>): PathCurve {
+        // both ring and coarse polygons of other curves go into basic regions
+        val obstacles = SegmentRTree(others.map { it.ringPolygon } + others.map { it.packedPolygon }, others + others)
+
+        return PathCurve(abstractCurve, path, flatness, PolygonSimplifier.simplify(packedPath, tolerance, obstacles))
+    }
 
-        val shape = Shape.intersect(bbox, path)
+    override fun computeShape(): Shape {
+        // so that the drawn curve is the one basic regions are computed from
+        val shape = if (simplifiedPolygon != null) toPath(simplifiedPolygon) else Path(path.elements)
         shape.fill = Color.TRANSPARENT
         shape.stroke = Color.DARKBLUE
         shape.strokeWidth = 2.0
@@ -34,52 +62,55 @@ class PathCurve(abstractCurve: AbstractCurve,
         return shape
     }
 
-    override fun computePolygon(): Polygon2D {
-        val moveTo = path.elements[0] as MoveTo
+    override fun computePolygon(): Polygon2D = Converter.toPolygon2D(packedPath)
 
-        val polygonPoints = arrayListOf<Point2D>()
+    override fun computeRingPolygon() = packedPath
 
-        val p0 = Point2D(moveTo.x, moveTo.y)
-        polygonPoints.add(p0)
+    /**
+     * The path flattened directly into packed coordinates.
+     */
+    private val packedPath: RingPolygon by lazy { simplifiedPolygon ?: flatten() }
 
-        // drop moveTo and close()
-        path.elements.drop(1).dropLast(1).forEach {
-            when (it) {
-                is QuadCurveTo -> {
-                    val smoothFactor = 10
-                    val p1 = polygonPoints.last()
-                    val p2 = Point2D(it.controlX, it.controlY)
-                    val p3 = Point2D(it.x, it.y)
+    private fun toPath(polygon: RingPolygon): Path {
+        val shape = Path()
 
-                    var t = 0.01
-                    while (t < 1.01) {
+        for (r in 0..polygon.numRings() - 1) {
+            val ring = polygon.ring(r)
 
-                        polygonPoints.add(getQuadValue(p1, p2, p3, t))
-                        t += 1.0 / smoothFactor
-                    }
+            shape.elements.add(MoveTo(ring[0], ring[1]))
 
-                    polygonPoints.add(p3)
-                }
+            for (i in 2..ring.size - 1 step 2) {
+                shape.elements.add(LineTo(ring[i], ring[i + 1]))
+            }
 
-                is CubicCurveTo -> {
-                    val smoothFactor = 10
-                    val p1 = polygonPoints.last()
-                    val p2 = Point2D(it.controlX1, it.controlY1)
-                    val p3 = Point2D(it.controlX2, it.controlY2)
-                    val p4 = Point2D(it.x, it.y)
+            shape.elements.add(ClosePath())
+        }
 
-                    var t = 0.01
-                    while (t < 1.01) {
+        return shape
+    }
 
-                        polygonPoints.add(getCubicValue(p1, p2, p3, p4, t))
-                        t += 1.0 / smoothFactor
-                    }
+    private fun flatten(): RingPolygon {
+        val moveTo = path.elements[0] as MoveTo
 
-                    polygonPoints.add(p4)
+        val points = CoordinateList(path.elements.size * 4)
+        points.add(moveTo.x, moveTo.y)
+
+        // drop moveTo and close()
+        path.elements.drop(1).dropLast(1).forEach {
+            val x0 = points.getX(points.size() - 1)
+            val y0 = points.getY(points.size() - 1)
+
+            when (it) {
+                is QuadCurveTo -> {
+                    BezierFlattener.flattenQuad(x0, y0, it.controlX, it.controlY, it.x, it.y, flatness, points)
+                }
+
+                is CubicCurveTo -> {
+                    BezierFlattener.flattenCubic(x0, y0, it.controlX1, it.controlY1, it.controlX2, it.controlY2, it.x, it.y, flatness, points)
                 }
 
                 is LineTo -> {
-                    polygonPoints.add(Point2D(it.x, it.y))
+                    points.add(it.x, it.y)
                 }
 
                 is ClosePath -> {
@@ -92,19 +123,6 @@ class PathCurve(abstractCurve: AbstractCurve,
             }
         }
 
-        return SimplePolygon2D(polygonPoints)
-    }
-
-    private fun getQuadValue(p1: Point2D, p2: Point2D, p3: Point2D, t: Double): Point2D {
-        val x = (1 - t) * (1 - t) * p1.x() + 2 * (1 - t) * t * p2.x() + t * t * p3.x()
-        val y = (1 - t) * (1 - t) * p1.y() + 2 * (1 - t) * t * p2.y() + t * t * p3.y()
-
-        return Point2D(x, y)
-    }
-
-    private fun getCubicValue(p1: Point2D, p2: Point2D, p3: Point2D, p4: Point2D, t: Double): Point2D {
-        val x = Math.pow(1 - t, 3.0) * p1.x + 3 * t * Math.pow(1 - t, 2.0) * p2.x + 3 * t*t * (1 - t) * p3.x + t*t*t*p4.x
-        val y = Math.pow(1 - t, 3.0) * p1.y + 3 * t * Math.pow(1 - t, 2.0) * p2.y + 3 * t*t * (1 - t) * p3.y + t*t*t*p4.y
-        return Point2D(x, y)
+        return RingPolygon(points.toArray())
     }
-}
\ No newline at end of file
+}
@@ -6,7 +6,6 @@ import icurves.util.Converter
 import javafx.geometry.Point2D
 import javafx.scene.paint.Color
 import javafx.scene.shape.Polygon
-import javafx.scene.shape.Rectangle
 import javafx.scene.shape.Shape
 
 /**
@@ -29,11 +28,7 @@ class PolygonCurve(
     }
 
     override fun computeShape(): Shape {
-        val bbox = Rectangle(10000.0, 10000.0)
-        bbox.translateX = -3000.0
-        bbox.translateY = -3000.0
-
-        val shape = Shape.intersect(bbox, polygonFX)
+        val shape = Polygon(*polygonFX.points.toDoubleArray())
         shape.fill = Color.TRANSPARENT
         shape.stroke = Color.DARKBLUE
         shape.strokeWidth = 2.0
@@ -1,15 +1,18 @@
 package icurves.graph
 
-import javafx.scene.shape.Shape
-
 /**
  *
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
-class EulerDualEdge(val v1: EulerDualNode, val v2: EulerDualNode, val curve: Shape) {
+class EulerDualEdge(val v1: EulerDualNode, val v2: EulerDualNode,
+
+                    /**
+                     * Packed polyline coordinates from [v1] to [v2].
+                     */
+                    val points: DoubleArray) {
 
     override fun toString(): String {
         return "($v1 -> $v2)"
     }
-}
\ No newline at end of file
+}
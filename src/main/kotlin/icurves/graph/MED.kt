@@ -6,9 +6,11 @@ import icurves.description.AbstractBasicRegion
 import icurves.description.AbstractCurve
 import icurves.diagram.BasicRegion
 import icurves.diagram.Curve
+import icurves.geometry.FixedPoint
+import icurves.geometry.RingPolygon
+import icurves.geometry.SegmentRTree
 import icurves.graph.cycles.CycleFinder
 import icurves.guifx.SettingsController
-import icurves.util.Converter
 import icurves.util.Profiler
 import javafx.geometry.Point2D
 import javafx.scene.paint.Color
@@ -27,19 +29,37 @@ import java.util.stream.Stream
 @Suppress("UNCHECKED_CAST")
 class MED(val allBasicRegions: List<BasicRegion>, private val allContours: Map<AbstractCurve, Curve>) {
 
+    companion object {
+        private val MIN_MED_NODES = 16
+    }
+
     private val log = LogManager.getLogger(javaClass)
 
     lateinit var nodes: MutableList<EulerDualNode>
     lateinit var edges: MutableList<EulerDualEdge>
 
+    /**
+     * Array view of [nodes] and [edges], built once both are complete.
+     */
+    val graph: MEDGraph
+
     private val settings: SettingsController
 
+    /**
+     * Boundaries of all curves, tagged with their abstract curves.
+     */
+    private val curveSegments by lazy {
+        SegmentRTree(allContours.values.map { it.ringPolygon }, allContours.values.map { it.abstractCurve })
+    }
+
     init {
         settings = CurvesApp.getInstance().settings
 
         computeEGD()
 
         computeMED()
+
+        graph = MEDGraph(nodes, edges)
     }
 
     private fun computeEGD() {
@@ -50,31 +70,37 @@ class MED(val allBasicRegions: List<BasicRegion>, private val allContours: Map<A
         Profiler.start("Creating EGD edges")
         edges = computeEGDEdges()
         Profiler.end("Creating EGD edges")
+
+        Profiler.start("Routing EGD edges")
+        routeEGDEdges()
+        Profiler.end("Routing EGD edges")
     }
 
     private fun computeMED() {
         val (center, radius) = computeMEDRing()
 
         Profiler.start("Creating MED nodes")
-        val nodesMED = computeMEDNodes(center, radius)
 
         // add the adjacent edges between outside and inside
         val outside = BasicRegion(AbstractBasicRegion.OUTSIDE, allContours)
 
-        nodes.filter { it.zone.isTopologicallyAdjacent(outside) }
-                .forEach { node ->
-                    val closestMEDNode = nodesMED.sortedBy { it.point.distance(node.point) }.first()
+        val adjacentNodes = nodes.filter { it.zone.isTopologicallyAdjacent(outside) }
+
+        val nodesMED = computeMEDNodes(center, radius, Math.max(MIN_MED_NODES, 2 * adjacentNodes.size))
+
+        adjacentNodes.forEach { node ->
+            val closestMEDNode = nodesMED[closestMEDNodeIndex(node.point, center, nodesMED.size)]
 
-                    edges.add(EulerDualEdge(node, closestMEDNode,
-                            Line(node.point.x, node.point.y, closestMEDNode.point.x, closestMEDNode.point.y)))
-                }
+            edges.add(EulerDualEdge(node, closestMEDNode,
+                    doubleArrayOf(node.point.x, node.point.y, closestMEDNode.point.x, closestMEDNode.point.y)))
+        }
 
         // then add nodesMED to nodes
         nodes.addAll(nodesMED)
         Profiler.end("Creating MED nodes")
 
         Profiler.start("Creating MED edges")
-        computeMEDRingEdges(nodesMED, center)
+        computeMEDRingEdges(nodesMED)
         Profiler.end("Creating MED edges")
     }
 
@@ -109,15 +135,15 @@ class MED(val allBasicRegions: List<BasicRegion>, private val allContours: Map<A
     }
 
     private fun computeNodesParallel(): MutableList<EulerDualNode> {
-        return Stream.of(*allBasicRegions.toTypedArray())
-                .parallel()
-                .map { createNode(it) }
-                .collect(Collectors.toList()) as MutableList<EulerDualNode>
+        BasicRegion.computeCenters(allBasicRegions)
+
+        return computeNodesSequential()
     }
 
     /**
      * Computes EGD edges based on given pairs of nodes.
      * An edge is constructed if basic regions of nodes are topologically adjacent.
+     * Edges are straight lines between region centers, see [routeEGDEdges].
      * Runs in parallel mode based on settings.
      */
     private fun computeEGDEdges(): MutableList<EulerDualEdge> {
@@ -154,7 +180,7 @@ class MED(val allBasicRegions: List<BasicRegion>, private val allContours: Map<A
     }
 
     /**
-     * Creates an Euler dual edge between [node1] and [node2] represented by a polyline.
+     * Creates a straight Euler dual edge between [node1] and [node2].
      */
     private fun createEdge(node1: EulerDualNode, node2: EulerDualNode): EulerDualEdge {
         log.trace("Creating edge: ${node1.zone} - ${node2.zone}")
@@ -162,107 +188,102 @@ class MED(val allBasicRegions: List<BasicRegion>, private val allContours: Map<A
         val p1 = node1.zone.center
         val p2 = node2.zone.center
 
-        val line = Line(p1.x, p1.y, p2.x, p2.y)
-
-        // the new curve segment must pass through the straddled curve
-        // and only through that curve
-        val curve = node1.zone.abRegion.getStraddledContour(node2.zone.abRegion).get()
-
-        log.trace("Searching ${node1.zone} - ${node2.zone} : $curve")
-
-        if (!isOK(line, curve, allContours.values.toList())) {
-            val poly = EdgeRouter.route(node1.zone, node2.zone)
-
-            if (poly.points.size == 4) {
-                throw RuntimeException("Failed to route edge: ${node1.zone} - ${node2.zone}")
-            }
-
-            val points = arrayListOf<Double>()
+        return EulerDualEdge(node1, node2, doubleArrayOf(p1.x, p1.y, p2.x, p2.y))
+    }
 
-            // shorten vertices by i values
-            var i = 0
-            while (i < poly.points.size - 2) {
-                points.add(poly.points[i])
-                points.add(poly.points[i+1])
+    /**
+     * Replaces straight edges that pass through curves other than the straddled one with routed polylines.
+     * All such edges are gathered first and routed as one batch, concurrently in parallel mode,
+     * then swapped in once the batch is done.
+     */
+    private fun routeEGDEdges() {
+        val blocked = edges.indices.filter { !isOK(edges[it]) }
 
-                i += 32
-            }
+        log.trace("Routing {} of {} edges", blocked.size, edges.size)
 
-            points.addAll(poly.points.takeLast(2))
+        val routes = EdgeRouter.routeAll(blocked.map { edges[it].v1.zone.to(edges[it].v2.zone) },
+                settings.useQuadtreeRouting(), settings.useBidirectionalRouting(), settings.isParallel)
 
-            val newPoly = Polyline(*points.toDoubleArray())
+        blocked.forEachIndexed { k, i ->
+            val edge = edges[i]
 
-            settings.globalMap["astar"] = newPoly
+            val points = routes[k] ?: throw RuntimeException("Failed to route edge: ${edge.v1.zone} - ${edge.v2.zone}")
 
-            return EulerDualEdge(node1, node2, newPoly)
+            edges[i] = EulerDualEdge(edge.v1, edge.v2, points)
         }
-
-        return EulerDualEdge(node1, node2, line)
     }
 
     /**
-     * Does curve segment [q] only pass through [actual] curve.
+     * The new curve segment must pass through the straddled curve and only through that curve.
      */
-    private fun isOK(q: Shape, actual: AbstractCurve, curves: List<Curve>): Boolean {
-        val list = curves.filter {
-            val s = it.computeShape()
-            s.fill = null
-            s.stroke = Color.BROWN
+    private fun isOK(edge: EulerDualEdge): Boolean {
+        val curve = edge.v1.zone.abRegion.getStraddledContour(edge.v2.zone.abRegion).get()
 
-            !Shape.intersect(s, q).getLayoutBounds().isEmpty()
-        }
+        return isOK(edge.points, curve)
+    }
 
-        if (list.size != 1)
-            return false
+    /**
+     * Does curve segment [q] only pass through [actual] curve.
+     *
+     * @param q packed polyline coordinates
+     */
+    private fun isOK(q: DoubleArray, actual: AbstractCurve): Boolean {
+        val crossings = curveSegments.crossings(q)
 
-        return list.get(0).abstractCurve == actual
+        return crossings.size == 1 && crossings.containsKey(actual)
     }
 
-    private fun computeMEDNodes(center: Point2D, radius: Double): List<EulerDualNode> {
+    /**
+     * @return [count] MED nodes evenly spaced on the MED ring, node k at angle PI + k * 2PI / count
+     */
+    private fun computeMEDNodes(center: Point2D, radius: Double, count: Int): List<EulerDualNode> {
         log.trace("Computing MED nodes")
 
-        val polygonMED = Converter.toPolygon2D(Converter.makePolygon(radius.toInt(), 16))
-
-        val firstPt = Point2D(center.x - radius, center.y)
-        val vector = firstPt.subtract(polygonMED.vertex(0).x(), polygonMED.vertex(0).y())
-
         // make "distinct" nodes so that jgrapht doesn't think it's a loop
         // TODO: it shouldn't since we also check points, which ARE different
-        return polygonMED.vertices().map { EulerDualNode(BasicRegion(AbstractBasicRegion.OUTSIDE, allContours), Point2D(it.x(), it.y()).add(vector)) }
+        return (0..count - 1).map {
+            val angle = Math.PI + 2 * Math.PI * it / count
+
+            EulerDualNode(BasicRegion(AbstractBasicRegion.OUTSIDE, allContours),
+                    Point2D(center.x + radius * Math.cos(angle), center.y + radius * Math.sin(angle)))
+        }
     }
 
     /**
-     * @param nodesMED nodes of MED placed in the outside zone
-     * @param center center of the MED bounding circle
+     * MED nodes are evenly spaced, so the closest one to a point inside the ring is the one closest by angle.
+     *
+     * @return index of the MED node closest to [point]
      */
-    private fun computeMEDRingEdges(nodesMED: List<EulerDualNode>, center: Point2D) {
-        // sort nodes along the MED ring
-        // sorting is CCW from 0 (right) to 360
-        Collections.sort(nodesMED, { node1, node2 ->
-            val v1 = node1.point.subtract(center)
-            val angle1 = vectorToAngle(v1)
+    private fun closestMEDNodeIndex(point: Point2D, center: Point2D, count: Int): Int {
+        val angle = Math.atan2(point.y - center.y, point.x - center.x)
+
+        val index = Math.round((angle - Math.PI) * count / (2 * Math.PI)).toInt() % count
 
-            val v2 = node2.point.subtract(center)
-            val angle2 = vectorToAngle(v2)
+        return if (index < 0) index + count else index
+    }
 
-            (angle1 - angle2).toInt()
-        })
+    /**
+     * @param nodesMED nodes of MED placed in the outside zone, in the order of [computeMEDNodes]
+     */
+    private fun computeMEDRingEdges(nodesMED: List<EulerDualNode>) {
+        val count = nodesMED.size
 
-        for (i in nodesMED.indices) {
-            val node1 = nodesMED[i]
-            val node2 = if (i == nodesMED.size - 1) nodesMED[0] else nodesMED[i+1]
+        // walk the ring from angle 0 (right) with decreasing angle, i.e. CCW on screen
+        for (i in 0..count - 1) {
+            val node1 = nodesMED[(count / 2 - i + count) % count]
+            val node2 = nodesMED[(count / 2 - i - 1 + count) % count]
 
             val p1 = node1.point
             val p2 = node2.point
 
-            edges.add(EulerDualEdge(node1, node2, Line(p1.x, p1.y, p2.x, p2.y)))
+            edges.add(EulerDualEdge(node1, node2, doubleArrayOf(p1.x, p1.y, p2.x, p2.y)))
         }
     }
 
     /**
      * A cycle is valid if it can be used to embed a curve.
      */
-    private fun isValid(cycle: GraphCycle<EulerDualNode, EulerDualEdge>): Boolean {
+    private fun isValid(cycle: GraphCycle<EulerDualNode, Int>): Boolean {
         log.trace("Checking cycle: $cycle")
 
         // this ensures that we do not allow same vertices in the cycle
@@ -285,75 +306,23 @@ class MED(val allBasicRegions: List<BasicRegion>, private val allContours: Map<A
         // add the first point (move to)
         cycle.smoothingData.add(tmpPoint)
 
-        cycle.edges.map { it.curve }.forEach { q ->
-
-            when(q) {
-
-                is Line -> {
-                    val lineTo = LineTo()
-
-                    // we do this coz source and end vertex might be swapped
-                    if (tmpPoint == Point2D(q.startX, q.startY)) {
-                        lineTo.x = q.endX
-                        lineTo.y = q.endY
-                    } else {
-                        lineTo.x = q.startX
-                        lineTo.y = q.startY
-                    }
-
-                    tmpPoint = Point2D(lineTo.x, lineTo.y)
-
-                    path.elements.add(lineTo)
-                    cycle.smoothingData.add(tmpPoint)
-                }
-
-                is Polyline -> {
-
-                    val start = Point2D(q.points[0], q.points[1])
-                    val end = Point2D(q.points[q.points.size-2], q.points[q.points.size-1])
+        cycle.edges.forEach { e ->
 
-                    val normalOrder: Boolean
+            val last = graph.numPoints(e) - 1
 
-                    // we do this coz source and end vertex might be swapped
-                    if (tmpPoint == start) {
-                        normalOrder = true
-                    } else {
-                        normalOrder = false
-                    }
+            // we do this coz source and end vertex might be swapped
+            val normalOrder = FixedPoint.samePoint(tmpPoint.x, tmpPoint.y, graph.pointX(e, 0), graph.pointY(e, 0))
 
-                    tmpPoint = end
+            for (k in 1..last) {
+                val i = if (normalOrder) k else last - k
 
-                    if (normalOrder) {
-                        var i = 2
-                        while (i < q.points.size) {
+                val point = Point2D(graph.pointX(e, i), graph.pointY(e, i))
 
-                            val point = Point2D(q.points[i], q.points[++i])
-                            val lineTo = LineTo(point.x, point.y)
-
-                            path.elements.add(lineTo)
-                            cycle.smoothingData.add(point)
-
-                            i++
-                        }
-                    } else {
-                        var i = q.points.size-3
-                        while (i > 0) {
-
-                            val point = Point2D(q.points[i-1], q.points[i])
-                            val lineTo = LineTo(point.x, point.y)
-
-                            path.elements.add(lineTo)
-                            cycle.smoothingData.add(point)
-
-                            i -= 2
-                        }
-                    }
-                }
-
-                else -> {
-                    throw IllegalArgumentException("Unknown edge shape: $q")
-                }
+                path.elements.add(LineTo(point.x, point.y))
+                cycle.smoothingData.add(point)
             }
+
+            tmpPoint = cycle.smoothingData.last()
         }
 
         // TODO: we can use this polygon to check inside vertex?
@@ -374,6 +343,8 @@ class MED(val allBasicRegions: List<BasicRegion>, private val allContours: Map<A
 
         cycle.path = path
 
+        val polygon = RingPolygon(cycle.smoothingData.flatMap { listOf(it.x, it.y) }.toDoubleArray())
+
         // we filter those vertices that are not part of the cycle
         // then we check if filtered vertices are inside the cycle
         nodes.filter {
@@ -387,8 +358,7 @@ class MED(val allBasicRegions: List<BasicRegion>, private val allContours: Map<A
 
             log.trace("Checking vertex $it")
 
-            //if (polygon.contains(it.point.x, it.point.y)) {
-            if (path.contains(it.point)) {
+            if (polygon.contains(it.point.x, it.point.y)) {
                 log.trace("Discarding cycle because of inside vertex: ${it.point}")
                 return false
             }
@@ -401,15 +371,11 @@ class MED(val allBasicRegions: List<BasicRegion>, private val allContours: Map<A
     /**
      * Enumerate all simple cycles.
      */
-    private fun enumerateCycles(): List<GraphCycle<EulerDualNode, EulerDualEdge>> {
-        val graph = CycleFinder<EulerDualNode, EulerDualEdge>(EulerDualEdge::class.java)
-        nodes.forEach { graph.addVertex(it) }
-        edges.forEach { graph.addEdge(it.v1, it.v2, it) }
-
-        return graph.computeCycles()
+    private fun enumerateCycles(): List<GraphCycle<EulerDualNode, Int>> {
+        return CycleFinder.computeCycles(nodes, graph.adjacencyMatrix()) { i, j -> graph.edgeBetween(i, j) }
     }
 
-    fun computeCycle(zonesToSplit: List<AbstractBasicRegion>): GraphCycle<EulerDualNode, EulerDualEdge>? {
+    fun computeCycle(zonesToSplit: List<AbstractBasicRegion>): GraphCycle<EulerDualNode, Int>? {
         log.trace("Computing cycle for $zonesToSplit")
 
         Profiler.start("Enumerating cycles")
@@ -421,18 +387,4 @@ class MED(val allBasicRegions: List<BasicRegion>, private val allContours: Map<A
         //        check that cycle nodes are equal or superset of what is required        and is valid
         return cycles.find { it.nodes.map { it.zone.abRegion }.containsAll(zonesToSplit) && isValid(it) }
     }
-
-    /**
-     * @return angle in [0..360]
-     */
-    private fun vectorToAngle(v: Point2D): Double {
-        var angle = -Math.toDegrees(Math.atan2(v.y, v.x))
-
-        if (angle < 0) {
-            val delta = 180 - (-angle)
-            angle = delta + 180
-        }
-
-        return angle
-    }
 }
\ No newline at end of file
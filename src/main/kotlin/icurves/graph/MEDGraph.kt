@@ -0,0 +1,157 @@
+package icurves.graph
+
+import icurves.diagram.BasicRegion
+import java.util.*
+
+/**
+ * Read-only struct-of-arrays view of MED, built once and shared by
+ * cycle search, cycle validation and rendering.
+ * Nodes and edges are addressed by index, edge polylines live in a single coordinate pool.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class MEDGraph(nodes: List<EulerDualNode>, edges: List<EulerDualEdge>) {
+
+    /**
+     * Distinct (by identity) regions of nodes.
+     */
+    private val regions = arrayListOf<BasicRegion>()
+
+    private val nodeRegion = IntArray(nodes.size)
+    private val nodeX = DoubleArray(nodes.size)
+    private val nodeY = DoubleArray(nodes.size)
+
+    private val edgeFrom = IntArray(edges.size)
+    private val edgeTo = IntArray(edges.size)
+
+    /**
+     * Index into coords of the first coordinate of each edge, plus the total length at the end.
+     */
+    private val edgeStart = IntArray(edges.size + 1)
+
+    /**
+     * Packed polyline coordinates of all edges, from source to target node.
+     */
+    private val coords: DoubleArray
+
+    private val nodeIndex = IdentityHashMap<EulerDualNode, Int>(nodes.size)
+
+    /**
+     * [pairKey] of nodes of each edge in the high half and edge index in the low half, sorted,
+     * so that the first edge between two nodes is found by binary search without boxing.
+     */
+    private val edgeKeys = LongArray(edges.size)
+
+    init {
+        if (nodes.size > MAX_NODES)
+            throw IllegalArgumentException("Too many nodes: ${nodes.size}")
+
+        val regionIndex = IdentityHashMap<BasicRegion, Int>()
+
+        nodes.forEachIndexed { i, node ->
+            nodeIndex[node] = i
+            nodeRegion[i] = regionIndex.getOrPut(node.zone) {
+                regions.add(node.zone)
+                regions.size - 1
+            }
+            nodeX[i] = node.point.x
+            nodeY[i] = node.point.y
+        }
+
+        edges.forEachIndexed { e, edge ->
+            edgeFrom[e] = nodeIndex[edge.v1] ?: throw IllegalArgumentException("Unknown node: ${edge.v1}")
+            edgeTo[e] = nodeIndex[edge.v2] ?: throw IllegalArgumentException("Unknown node: ${edge.v2}")
+            edgeStart[e + 1] = edgeStart[e] + edge.points.size
+
+            edgeKeys[e] = (pairKey(edgeFrom[e], edgeTo[e]) shl 32) or e.toLong()
+        }
+
+        Arrays.sort(edgeKeys)
+
+        coords = DoubleArray(edgeStart[edges.size])
+
+        edges.forEachIndexed { e, edge ->
+            System.arraycopy(edge.points, 0, coords, edgeStart[e], edge.points.size)
+        }
+    }
+
+    fun numNodes() = nodeX.size
+
+    fun numEdges() = edgeFrom.size
+
+    /**
+     * @return index of [node] or -1 if it is not in the graph
+     */
+    fun indexOf(node: EulerDualNode) = nodeIndex[node] ?: -1
+
+    fun x(node: Int) = nodeX[node]
+
+    fun y(node: Int) = nodeY[node]
+
+    fun region(node: Int) = regions[nodeRegion[node]]
+
+    /**
+     * @return index of the region of [node], nodes in the same region have the same index
+     */
+    fun regionIndex(node: Int) = nodeRegion[node]
+
+    fun from(edge: Int) = edgeFrom[edge]
+
+    fun to(edge: Int) = edgeTo[edge]
+
+    fun numPoints(edge: Int) = (edgeStart[edge + 1] - edgeStart[edge]) / 2
+
+    fun pointX(edge: Int, i: Int) = coords[edgeStart[edge] + 2 * i]
+
+    fun pointY(edge: Int, i: Int) = coords[edgeStart[edge] + 2 * i + 1]
+
+    /**
+     * @return a copy of packed polyline coordinates of [edge]
+     */
+    fun edgePoints(edge: Int) = Arrays.copyOfRange(coords, edgeStart[edge], edgeStart[edge + 1])
+
+    /**
+     * @return symmetric adjacency matrix, self loops are ignored
+     */
+    fun adjacencyMatrix(): Array<BooleanArray> {
+        val matrix = Array(numNodes()) { BooleanArray(numNodes()) }
+
+        for (e in 0..numEdges() - 1) {
+            val i = edgeFrom[e]
+            val j = edgeTo[e]
+
+            if (i != j) {
+                matrix[i][j] = true
+                matrix[j][i] = true
+            }
+        }
+
+        return matrix
+    }
+
+    /**
+     * Like a simple graph, of parallel edges only the first one counts.
+     *
+     * @return index of the first edge between nodes [i] and [j] in either direction, or -1
+     */
+    fun edgeBetween(i: Int, j: Int): Int {
+        val key = pairKey(i, j)
+
+        // of equal pair keys the lowest edge index sorts first
+        var index = Arrays.binarySearch(edgeKeys, key shl 32)
+        if (index < 0)
+            index = -index - 1
+
+        return if (index < edgeKeys.size && edgeKeys[index] ushr 32 == key) edgeKeys[index].toInt() else -1
+    }
+
+    private fun pairKey(i: Int, j: Int) = Math.min(i, j).toLong() * numNodes() + Math.max(i, j)
+
+    companion object {
+
+        /**
+         * Pair keys must fit into the high half of a long.
+         */
+        private val MAX_NODES = 46340
+    }
+}
@@ -1,10 +1,15 @@
 package icurves.recomposition
 
 import icurves.diagram.BasicRegion
+import icurves.diagram.Curve
+import icurves.geometry.RingPolygon
+import icurves.geometry.SegmentRTree
+import icurves.geometry.Segments
 import javafx.geometry.Point2D
 
 /**
- *
+ * Center and radius of a circle that double pierces the [cluster] of four basic regions,
+ * i.e. placed where the two curves splitting the cluster cross.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
@@ -14,24 +19,80 @@ class PiercingData(cluster: List<BasicRegion>, basicRegions: List<BasicRegion>)
     val radius: Double
 
     init {
-        center = cluster.map { it.getPolygonShape().vertices() }
-                .flatten()
-                .groupBy({ it.asInt })
-                // we search for a vertex that is present in all four regions
-                .filter { it.value.size == 4 }
-                .map { Point2D(it.key.getX(), it.key.getY()) }
-                .firstOrNull()
+        center = findCrossing(cluster)
 
         if (center != null) {
-            radius = basicRegions
-                    .minus(cluster)
-                    .map { it.getPolygonShape().distance(center.x, center.y) }
-                    .sorted()
-                    .first()
+            // one query per step, so a plain scan is cheaper than building an index
+            radius = Math.sqrt(basicRegions.minus(cluster).map { distanceSq(it.polygon, center.x, center.y) }.min()
+                    ?: Double.POSITIVE_INFINITY)
         } else {
             radius = 0.0
         }
     }
 
+    /**
+     * @return a point where the two curves that split the cluster cross,
+     * such that all other curves contain it exactly as they contain the cluster
+     */
+    private fun findCrossing(cluster: List<BasicRegion>): Point2D? {
+        if (cluster.size != 4)
+            return null
+
+        // curves that some, but not all, regions of the cluster are in
+        val splitting = cluster.flatMap { it.containingCurves }
+                .distinct()
+                .filter { curve -> !cluster.all { it.containingCurves.contains(curve) } }
+
+        if (splitting.size != 2)
+            return null
+
+        val common = cluster[0].containingCurves.minus(splitting)
+        val otherCurves = (cluster[0].containingCurves + cluster[0].excludingCurves).minus(splitting)
+
+        val curve1 = splitting[0].packedPolygon
+        val curve2 = SegmentRTree(listOf(splitting[1].packedPolygon), listOf(splitting[1]))
+
+        for (r in 0..curve1.numRings() - 1) {
+            val ring = curve1.ring(r)
+            var j = ring.size - 2
+
+            for (i in 0..ring.size - 1 step 2) {
+                val points = curve2.crossingPoints(ring[j], ring[j + 1], ring[i], ring[i + 1])
+
+                for (k in 0..points.size - 1 step 2) {
+                    if (isInside(points[k], points[k + 1], otherCurves, common))
+                        return Point2D(points[k], points[k + 1])
+                }
+
+                j = i
+            }
+        }
+
+        return null
+    }
+
     fun isPiercing() = center != null
-}
\ No newline at end of file
+
+    /**
+     * @return squared distance from point x, y to the boundary of [polygon]
+     */
+    private fun distanceSq(polygon: RingPolygon, x: Double, y: Double): Double {
+        var min = Double.POSITIVE_INFINITY
+
+        for (r in 0..polygon.numRings() - 1) {
+            val ring = polygon.ring(r)
+            var j = ring.size - 2
+
+            for (i in 0..ring.size - 1 step 2) {
+                min = Math.min(min, Segments.distanceSq(x, y, ring[j], ring[j + 1], ring[i], ring[i + 1]))
+                j = i
+            }
+        }
+
+        return min
+    }
+
+    private fun isInside(x: Double, y: Double, curves: List<Curve>, containing: List<Curve>): Boolean {
+        return curves.all { it.packedPolygon.contains(x, y) == containing.contains(it) }
+    }
+}
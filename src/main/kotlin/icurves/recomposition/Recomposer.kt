@@ -10,4 +10,11 @@ import icurves.decomposition.DecompositionStep
 interface Recomposer {
 
     fun recompose(decompositionSteps: List<DecompositionStep>): List<RecompositionStep>
+
+    /**
+     * Same as [recompose] but each recomposition step is only computed
+     * when it is requested from the returned iterator.
+     * This allows the caller to start embedding curves before all steps are known.
+     */
+    fun recomposeLazily(decompositionSteps: List<DecompositionStep>): Iterator<RecompositionStep>
 }
\ No newline at end of file
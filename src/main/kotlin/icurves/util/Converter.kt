@@ -1,12 +1,16 @@
 package icurves.util
 
 import icurves.diagram.curve.CircleCurve
+import icurves.geometry.RingPolygon
 import javafx.geometry.Point2D
 import javafx.scene.paint.Color
-import javafx.scene.shape.Polygon
+import javafx.scene.shape.*
+import math.geom2d.polygon.LinearRing2D
+import math.geom2d.polygon.MultiPolygon2D
 import math.geom2d.polygon.Polygon2D
 import math.geom2d.polygon.SimplePolygon2D
 import java.util.*
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  *
@@ -16,12 +20,60 @@ import java.util.*
 class Converter {
 
     companion object {
+        /**
+         * Max distance between a circle and the edges of its polygon.
+         */
+        const val CIRCLE_TOLERANCE = 1.0
+
+        private val MIN_CIRCLE_VERTICES = 16
+
+        private val MAX_CIRCLE_VERTICES = 1024
+
+        /**
+         * Packed cos, sin of regular polygons inscribed in the unit circle, by number of vertices.
+         */
+        private val unitCircles = ConcurrentHashMap<Int, DoubleArray>()
+
+        /**
+         * @return a coarse 16-gon circumscribed about the circle
+         */
         @JvmStatic fun circleToPolygon(circle: CircleCurve): Polygon2D {
-            val fxPoly = makePolygon(circle.radius.toInt(), 16)
-            fxPoly.translateX = circle.getMinX().toDouble()
-            fxPoly.translateY = circle.getMinY().toDouble()
+            val vertices = 16
+
+            // vertices start at angle PI, as they did with makePolygon()
+            val polygon = circleToRingPolygon(circle.centerX, circle.centerY, -circle.radius / Math.cos(Math.PI / vertices), vertices)
+
+            return toPolygon2D(polygon)
+        }
+
+        /**
+         * @return number of vertices of a polygon inscribed in a circle of [radius],
+         * such that no edge is further than [tolerance] from the circle,
+         * rounded up to a multiple of 8 so that circles of similar size share a unit circle table
+         */
+        @JvmStatic fun circleVertices(radius: Double, tolerance: Double): Int {
+            if (radius <= tolerance)
+                return MIN_CIRCLE_VERTICES
+
+            // the sagitta of each edge is radius * (1 - cos(PI / vertices))
+            val vertices = Math.ceil(Math.PI / Math.acos(1 - tolerance / radius)).toInt()
+
+            return Math.min(MAX_CIRCLE_VERTICES, Math.max(MIN_CIRCLE_VERTICES, (vertices + 7) / 8 * 8))
+        }
+
+        private fun unitCircle(vertices: Int): DoubleArray {
+            return unitCircles.getOrPut(vertices) {
+                val points = DoubleArray(2 * vertices)
+
+                for (i in 0..vertices - 1) {
+                    val angle = 2 * Math.PI * i / vertices
 
-            return toPolygon2D(fxPoly)
+                    points[2 * i] = Math.cos(angle)
+                    points[2 * i + 1] = Math.sin(angle)
+                }
+
+                points
+            }
         }
 
         @JvmStatic fun toPolygon2D(polygon: Polygon): Polygon2D {
@@ -39,6 +91,81 @@ class Converter {
             return SimplePolygon2D(points)
         }
 
+        @JvmStatic fun toPolygon2D(polygon: RingPolygon): Polygon2D {
+            val rings = (0..polygon.numRings() - 1).map { r ->
+                val ring = polygon.ring(r)
+
+                LinearRing2D((0..ring.size / 2 - 1).map { math.geom2d.Point2D(ring[2 * it], ring[2 * it + 1]) })
+            }
+
+            if (rings.size == 1)
+                return SimplePolygon2D(rings[0].vertices())
+
+            return MultiPolygon2D(rings)
+        }
+
+        @JvmStatic fun toRingPolygon(polygon: Polygon2D): RingPolygon {
+            val rings = polygon.contours().map { ring ->
+                val points = DoubleArray(2 * ring.vertexNumber())
+
+                var i = 0
+                for (p in ring.vertices()) {
+                    points[i++] = p.x()
+                    points[i++] = p.y()
+                }
+
+                points
+            }
+
+            return RingPolygon(rings)
+        }
+
+        /**
+         * @return a circle approximated by a regular polygon with [vertices] vertices
+         */
+        @JvmStatic fun circleToRingPolygon(centerX: Double, centerY: Double, radius: Double, vertices: Int): RingPolygon {
+            val unit = unitCircle(vertices)
+            val points = DoubleArray(unit.size)
+
+            for (i in 0..vertices - 1) {
+                points[2 * i] = centerX + radius * unit[2 * i]
+                points[2 * i + 1] = centerY + radius * unit[2 * i + 1]
+            }
+
+            return RingPolygon(points)
+        }
+
+        /**
+         * @return a circle approximated by a regular polygon within [CIRCLE_TOLERANCE] of it
+         */
+        @JvmStatic fun circleToRingPolygon(centerX: Double, centerY: Double, radius: Double): RingPolygon {
+            return circleToRingPolygon(centerX, centerY, radius, circleVertices(radius, CIRCLE_TOLERANCE))
+        }
+
+        /**
+         * @return a path with a subpath for each ring, filled using the even-odd rule
+         */
+        @JvmStatic fun toPathFX(polygon: RingPolygon): Path {
+            val path = Path()
+            path.fillRule = FillRule.EVEN_ODD
+
+            for (r in 0..polygon.numRings() - 1) {
+                val ring = polygon.ring(r)
+
+                path.elements.add(MoveTo(ring[0], ring[1]))
+
+                var i = 2
+                while (i < ring.size) {
+                    path.elements.add(LineTo(ring[i], ring[i + 1]))
+                    i += 2
+                }
+
+                path.elements.add(ClosePath())
+            }
+
+            return path
+        }
+
         @JvmStatic fun toPolygonFX(polygon: Polygon2D): Polygon {
             val points = DoubleArray(2 * polygon.vertexNumber())
 
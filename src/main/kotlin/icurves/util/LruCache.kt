@@ -0,0 +1,61 @@
+package icurves.util
+
+import java.util.*
+
+/**
+ * A map of at most [capacity] entries that evicts the least recently used entry when full.
+ * Safe to use from several threads.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class LruCache<K, V>(val capacity: Int) {
+
+    private val map = object : LinkedHashMap<K, V>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, V>?) = size > capacity
+    }
+
+    private var hits = 0L
+    private var misses = 0L
+
+    @Synchronized fun get(key: K): V? {
+        val value = map[key]
+
+        if (value != null) hits++ else misses++
+
+        return value
+    }
+
+    @Synchronized fun put(key: K, value: V) {
+        map[key] = value
+    }
+
+    /**
+     * The value is computed outside of the lock, so that slow computations do not block other threads.
+     * Two threads may then compute the same value, the last one wins.
+     */
+    fun getOrPut(key: K, compute: () -> V): V {
+        val value = get(key)
+        if (value != null)
+            return value
+
+        val newValue = compute()
+        put(key, newValue)
+        return newValue
+    }
+
+    @Synchronized fun size() = map.size
+
+    /**
+     * @return number of lookups that found a value, including those by [getOrPut]
+     */
+    @Synchronized fun hits() = hits
+
+    /**
+     * @return number of lookups that found no value, including those by [getOrPut]
+     */
+    @Synchronized fun misses() = misses
+
+    @Synchronized fun clear() {
+        map.clear()
+    }
+}
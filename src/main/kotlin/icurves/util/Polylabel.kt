@@ -1,7 +1,8 @@
 package icurves.util
 
+import icurves.geometry.RingPolygon
+import icurves.geometry.Segments
 import javafx.geometry.Point2D
-import math.geom2d.polygon.Polygon2D
 import java.util.*
 
 /**
@@ -15,34 +16,37 @@ class Polylabel {
     companion object {
         val precision = 1.0
 
-        @JvmStatic fun findCenter(polygon: Polygon2D): Point2D {
+        private val SQRT2 = Math.sqrt(2.0)
 
-            // a priority queue of cells in order of their "potential" (max distance to polygon)
-            val cellQueue = PriorityQueue<Cell>(Comparator { a, b -> (b.max - a.max).toInt() })
+        @JvmStatic fun findCenter(polygon: RingPolygon): Point2D {
+            if (polygon.isEmpty())
+                return Point2D.ZERO
+
+            // edges of all rings are collected once, packed as x1, y1, x2, y2
+            val edges = packEdges(polygon)
 
-            // find the bounding box of the outer ring
-            val bbox = polygon.boundingBox()
+            // a priority queue of cells in order of their "potential" (max distance to polygon)
+            val cellQueue = PriorityQueue<Cell>(Comparator { a, b -> java.lang.Double.compare(b.max, a.max) })
 
-            val minX = bbox.minX
-            val minY = bbox.minY
-            val maxX = bbox.maxX
-            val maxY = bbox.maxY
+            val minX = polygon.minX
+            val minY = polygon.minY
+            val maxX = polygon.maxX
+            val maxY = polygon.maxY
 
-            var width = maxX - minX;
-            var height = maxY - minY;
-            var cellSize = Math.min(width, height);
-            var h = cellSize / 2;
+            val width = maxX - minX
+            val height = maxY - minY
+            val cellSize = Math.min(width, height)
+            var h = cellSize / 2
 
             if (cellSize == 0.0)
                 return Point2D(minX, minY)
 
-            var x = minX
-            var y = minY
-
             // cover polygon with initial cells
+            var x = minX
             while (x < maxX) {
+                var y = minY
                 while (y < maxY) {
-                    cellQueue.add(Cell(x + h, y + h, h, polygon))
+                    cellQueue.add(Cell(x + h, y + h, h, edges))
 
                     y += cellSize
                 }
@@ -51,47 +55,114 @@ class Polylabel {
             }
 
             // take centroid as the first best guess
-            val centroid = polygon.centroid()
-            var bestCell = Cell(centroid.x(), centroid.y(), 0.0, polygon)
+            var bestCell = centroidCell(polygon, edges)
 
             // special case for rectangular polygons
-            val bboxCell = Cell(minX + width / 2, minY + height / 2, 0.0, polygon)
+            val bboxCell = Cell(minX + width / 2, minY + height / 2, 0.0, edges)
 
             if (bboxCell.d > bestCell.d)
                 bestCell = bboxCell
 
-            var numProbes = cellQueue.size
-
             while (cellQueue.isNotEmpty()) {
                 // pick the most promising cell from the queue
                 val cell = cellQueue.poll()
 
                 // update the best cell if we found a better one
                 if (cell.d > bestCell.d) {
-                    bestCell = cell;
+                    bestCell = cell
                 }
 
                 // do not drill down further if there's no chance of a better solution
                 if (cell.max - bestCell.d <= precision)
-                    continue;
+                    continue
 
                 // split the cell into four cells
-                h = cell.h / 2;
-
-                cellQueue.add(Cell(cell.x - h, cell.y - h, h, polygon))
-                cellQueue.add(Cell(cell.x + h, cell.y - h, h, polygon))
-                cellQueue.add(Cell(cell.x - h, cell.y + h, h, polygon))
-                cellQueue.add(Cell(cell.x + h, cell.y + h, h, polygon))
+                h = cell.h / 2
 
-                numProbes += 4;
+                cellQueue.add(Cell(cell.x - h, cell.y - h, h, edges))
+                cellQueue.add(Cell(cell.x + h, cell.y - h, h, edges))
+                cellQueue.add(Cell(cell.x - h, cell.y + h, h, edges))
+                cellQueue.add(Cell(cell.x + h, cell.y + h, h, edges))
             }
 
             return Point2D(bestCell.x, bestCell.y)
         }
-    }
 
-    private object SQRT2 {
-        val value by lazy { Math.sqrt(2.0) }
+        private fun packEdges(polygon: RingPolygon): DoubleArray {
+            val edges = DoubleArray(polygon.numVertices() * 4)
+            var k = 0
+
+            for (r in 0..polygon.numRings() - 1) {
+                val ring = polygon.ring(r)
+                var j = ring.size - 2
+
+                for (i in 0..ring.size - 1 step 2) {
+                    edges[k++] = ring[j]
+                    edges[k++] = ring[j + 1]
+                    edges[k++] = ring[i]
+                    edges[k++] = ring[i + 1]
+                    j = i
+                }
+            }
+
+            return edges
+        }
+
+        /**
+         * Area-weighted centroid of all rings, holes (being oriented the other way) subtract.
+         */
+        private fun centroidCell(polygon: RingPolygon, edges: DoubleArray): Cell {
+            var area = 0.0
+            var cx = 0.0
+            var cy = 0.0
+
+            var i = 0
+            while (i < edges.size) {
+                val ax = edges[i]
+                val ay = edges[i + 1]
+                val bx = edges[i + 2]
+                val by = edges[i + 3]
+
+                val f = ax * by - bx * ay
+                cx += (ax + bx) * f
+                cy += (ay + by) * f
+                area += f * 3
+
+                i += 4
+            }
+
+            if (area == 0.0)
+                return Cell(polygon.ring(0)[0], polygon.ring(0)[1], 0.0, edges)
+
+            return Cell(cx / area, cy / area, 0.0, edges)
+        }
+
+        /**
+         * @return signed distance from point to polygon outline (negative if point is outside)
+         */
+        private fun signedDistance(x: Double, y: Double, edges: DoubleArray): Double {
+            var inside = false
+            var minDistSq = Double.POSITIVE_INFINITY
+
+            var i = 0
+            while (i < edges.size) {
+                val ax = edges[i]
+                val ay = edges[i + 1]
+                val bx = edges[i + 2]
+                val by = edges[i + 3]
+
+                if ((ay > y) != (by > y) && x < (bx - ax) * (y - ay) / (by - ay) + ax)
+                    inside = !inside
+
+                minDistSq = Math.min(minDistSq, Segments.distanceSq(x, y, ax, ay, bx, by))
+
+                i += 4
+            }
+
+            val distance = Math.sqrt(minDistSq)
+
+            return if (inside) distance else -distance
+        }
     }
 
     private class Cell(
@@ -101,19 +172,12 @@ class Polylabel {
 
             // half cell size
             val h: Double,
-            val polygon: Polygon2D) {
+            edges: DoubleArray) {
 
         // distance from cell center to polygon
-        val d: Double
+        val d = signedDistance(x, y, edges)
 
         // max distance to polygon within a cell
-        val max: Double
-
-        init {
-            // signed distance from point to polygon outline (negative if point is outside)
-            d = -polygon.boundary().signedDistance(x, y)
-
-            max = d + h * SQRT2.value
-        }
+        val max = d + h * SQRT2
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package icurves.algorithm.astar;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GridAStarTest {
+
+    @Test
+    public void testPathAroundWall() {
+        GridAStar grid = new GridAStar(5, 5);
+
+        // wall at x = 2 with a gap at y = 4
+        for (int y = 0; y < 4; y++)
+            grid.setWalkable(2, y, false);
+
+        int[] path = grid.findPath(0, 0, 4, 0);
+
+        // 4 across, 4 down and 4 up
+        assertEquals(12 * 2, path.length);
+        assertEquals(4, path[path.length - 2]);
+        assertEquals(0, path[path.length - 1]);
+
+        grid.setWalkable(2, 4, false);
+
+        assertEquals(0, grid.findPath(0, 0, 4, 0).length);
+    }
+
+    @Test
+    public void testLeastCost() {
+        Random random = new Random(42);
+
+        for (int run = 0; run < 20; run++) {
+            int width = 10 + random.nextInt(20);
+            int height = 10 + random.nextInt(20);
+
+            GridAStar grid = new GridAStar(width, height);
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    grid.setWalkable(x, y, random.nextInt(4) != 0);
+                    grid.setCost(x, y, 2500 + random.nextInt(2500));
+                }
+            }
+
+            int startX = random.nextInt(width), startY = random.nextInt(height);
+            int targetX = random.nextInt(width), targetY = random.nextInt(height);
+
+            if (startX == targetX && startY == targetY)
+                continue;
+
+            int expected = leastCost(grid, startX, startY, targetX, targetY);
+
+            int[] path = grid.findPath(startX, startY, targetX, targetY);
+
+            assertEquals(expected, grid.getPathCost());
+            assertEquals(expected, cost(grid, path));
+
+            grid.setBidirectional(true);
+            path = grid.findPath(startX, startY, targetX, targetY);
+            grid.setBidirectional(false);
+
+            assertEquals(expected, grid.getPathCost());
+            assertEquals(expected, cost(grid, path));
+        }
+    }
+
+    @Test
+    public void testHeuristicExpandsLess() {
+        GridAStar grid = new GridAStar(100, 100);
+
+        grid.findPath(0, 50, 99, 50);
+
+        // straight line, only cells on the way
+        assertEquals(100, grid.getExpanded());
+    }
+
+    /**
+     * @return cost of path, or -1 if it is empty
+     */
+    private static int cost(GridAStar grid, int[] path) {
+        if (path.length == 0)
+            return -1;
+
+        int total = 0;
+        for (int i = 0; i < path.length; i += 2) {
+            total += GridAStar.MOVE_COST + grid.getCost(path[i], path[i + 1]);
+        }
+
+        return total;
+    }
+
+    /**
+     * Plain Dijkstra.
+     */
+    private static int leastCost(GridAStar grid, int startX, int startY, int targetX, int targetY) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+
+        int[] dist = new int[width * height];
+        boolean[] done = new boolean[width * height];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        dist[startY * width + startX] = 0;
+
+        while (true) {
+            int current = -1;
+            for (int i = 0; i < dist.length; i++) {
+                if (!done[i] && dist[i] != Integer.MAX_VALUE && (current == -1 || dist[i] < dist[current]))
+                    current = i;
+            }
+
+            if (current == -1)
+                return -1;
+
+            if (current == targetY * width + targetX)
+                return dist[current];
+
+            done[current] = true;
+
+            int x = current % width, y = current / width;
+            int[] neighbors = { x - 1, y, x + 1, y, x, y - 1, x, y + 1 };
+
+            for (int i = 0; i < neighbors.length; i += 2) {
+                int nx = neighbors[i], ny = neighbors[i + 1];
+
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height || !grid.isWalkable(nx, ny))
+                    continue;
+
+                int next = ny * width + nx;
+                dist[next] = Math.min(dist[next], dist[current] + GridAStar.MOVE_COST + grid.getCost(nx, ny));
+            }
+        }
+    }
+}
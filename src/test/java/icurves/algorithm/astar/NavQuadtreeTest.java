@@ -0,0 +1,87 @@
+package icurves.algorithm.astar;
+
+import icurves.geometry.RingPolygon;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NavQuadtreeTest {
+
+    /**
+     * Two 100 x 100 rooms joined by a 100 long, 6 wide corridor.
+     */
+    private static final RingPolygon DUMBBELL = new RingPolygon(new double[] {
+            0, 0, 100, 0, 100, 47, 200, 47, 200, 0, 300, 0,
+            300, 100, 200, 100, 200, 53, 100, 53, 100, 100, 0, 100
+    });
+
+    @Test
+    public void testPathThroughNeck() {
+        NavQuadtree tree = new NavQuadtree(DUMBBELL, 1, 2);
+
+        double[] path = tree.findPath(50, 50, 250, 50);
+
+        assertTrue(path.length > 0);
+        assertEquals(250, path[path.length - 2], 0);
+        assertEquals(50, path[path.length - 1], 0);
+
+        double prevX = 50, prevY = 50;
+
+        for (int i = 0; i < path.length; i += 2) {
+            // every step stays inside, which in the corridor means close to its middle line
+            assertTrue(DUMBBELL.contains((prevX + path[i]) / 2, (prevY + path[i + 1]) / 2));
+            assertFalse(DUMBBELL.boundaryIntersects(prevX, prevY, path[i], path[i + 1]));
+
+            prevX = path[i];
+            prevY = path[i + 1];
+        }
+    }
+
+    @Test
+    public void testPathIsStraightened() {
+        NavQuadtree tree = new NavQuadtree(DUMBBELL, 1, 2);
+
+        // straight through the corridor, the start and target are in line of sight of both of its ends
+        assertTrue(tree.findPath(50, 50, 250, 50).length <= 2 * 3);
+
+        // rooms are convex, so within one room there is only the target
+        assertArrayEquals(new double[] { 80, 20 }, tree.findPath(10, 90, 80, 20), 0);
+    }
+
+    @Test
+    public void testFewerCellsThanGrid() {
+        NavQuadtree tree = new NavQuadtree(DUMBBELL, 1, 2);
+
+        // a uniform grid of min cells over the walkable area would have about 20000 cells
+        assertTrue(tree.numLeaves() < 20000 / 4);
+    }
+
+    @Test
+    public void testEndsJoinedToNearestLeaf() {
+        NavQuadtree tree = new NavQuadtree(DUMBBELL, 1, 2);
+
+        // closer than clearance to the corridor wall
+        assertEquals(-1, tree.leafAt(150, 48));
+
+        int leaf = tree.nearestLeaf(150, 48);
+
+        double[] path = tree.findPath(150, 48, 250, 50);
+
+        assertTrue(path.length > 2);
+        assertEquals(tree.centerX(leaf), path[0], 0);
+        assertEquals(tree.centerY(leaf), path[1], 0);
+
+        path = tree.findPath(50, 50, 150, 48);
+
+        assertTrue(path.length > 2);
+        assertEquals(150, path[path.length - 2], 0);
+        assertEquals(48, path[path.length - 1], 0);
+    }
+
+    @Test
+    public void testNeckTooNarrow() {
+        NavQuadtree tree = new NavQuadtree(DUMBBELL, 1, 4);
+
+        assertEquals(0, tree.findPath(50, 50, 250, 50).length);
+    }
+}
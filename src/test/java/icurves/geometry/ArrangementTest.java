@@ -0,0 +1,41 @@
+package icurves.geometry;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ArrangementTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    public void testVenn2() {
+        RingPolygon a = RingPolygon.rectangle(0, 0, 10, 10);
+        RingPolygon b = RingPolygon.rectangle(5, 0, 15, 10);
+
+        Arrangement arrangement = new Arrangement(Arrays.asList(a, b), RingPolygon.rectangle(-100, -100, 100, 100));
+
+        assertEquals(4, arrangement.getLabels().size());
+        assertEquals(50, arrangement.getFace(0b01).area(), EPS);
+        assertEquals(50, arrangement.getFace(0b10).area(), EPS);
+        assertEquals(50, arrangement.getFace(0b11).area(), EPS);
+        assertEquals(200 * 200 - 150, arrangement.getFace(0).area(), EPS);
+    }
+
+    @Test
+    public void testNestedCurves() {
+        RingPolygon a = RingPolygon.rectangle(0, 0, 10, 10);
+        RingPolygon b = RingPolygon.rectangle(2, 2, 8, 8);
+
+        Arrangement arrangement = new Arrangement(Arrays.asList(a, b), RingPolygon.rectangle(-100, -100, 100, 100));
+
+        assertEquals(64, arrangement.getFace(0b01).area(), EPS);
+        assertEquals(36, arrangement.getFace(0b11).area(), EPS);
+        assertTrue(arrangement.getFace(0b10).isEmpty());
+
+        // ring with a hole
+        assertEquals(2, arrangement.getFace(0b01).numRings());
+    }
+}
@@ -0,0 +1,42 @@
+package icurves.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BezierFlattenerTest {
+
+    private static final double TOLERANCE = 0.5;
+
+    @Test
+    public void testStraightCurveIsOneSegment() {
+        CoordinateList points = new CoordinateList();
+        BezierFlattener.flattenCubic(0, 0, 10, 0, 20, 0, 30, 0, TOLERANCE, points);
+
+        assertEquals(1, points.size());
+        assertEquals(30, points.getX(0), 0);
+        assertEquals(0, points.getY(0), 0);
+    }
+
+    @Test
+    public void testVerticesWithinTolerance() {
+        CoordinateList points = new CoordinateList();
+        BezierFlattener.flattenQuad(0, 0, 50, 100, 100, 0, TOLERANCE, points);
+
+        assertTrue(points.size() > 1);
+        assertEquals(100, points.getX(points.size() - 1), 0);
+        assertEquals(0, points.getY(points.size() - 1), 0);
+
+        // midpoint of each polyline edge is close to the parabola y = 2x - x^2 / 50
+        double prevX = 0, prevY = 0;
+        for (int i = 0; i < points.size(); i++) {
+            double midX = (prevX + points.getX(i)) / 2;
+            double midY = (prevY + points.getY(i)) / 2;
+
+            assertEquals(2 * midX - midX * midX / 50, midY, TOLERANCE);
+
+            prevX = points.getX(i);
+            prevY = points.getY(i);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package icurves.geometry;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class DistanceFieldTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    public void testSquare() {
+        DistanceField field = new DistanceField(Collections.singletonList(RingPolygon.rectangle(0, 0, 10, 10)),
+                0, 0, 1, 10, 10);
+
+        assertTrue(field.isInside(0, 0));
+        assertTrue(field.isInside(9, 9));
+        assertFalse(field.isInside(-1, 5));
+        assertFalse(field.isInside(10, 5));
+
+        assertEquals(0.5, field.distance(0, 0), EPS);
+        assertEquals(4.5, field.distance(4, 4), EPS);
+        assertEquals(2.5, field.distance(2, 7), EPS);
+        assertEquals(0, field.distance(-1, 5), EPS);
+    }
+
+    @Test
+    public void testSameAsBruteForce() {
+        // diamond next to a square, sharing no edges
+        RingPolygon diamond = new RingPolygon(new double[] { 10, 0, 20, 10, 10, 20, 0, 10 });
+        RingPolygon square = RingPolygon.rectangle(20, 5, 30, 15);
+
+        DistanceField field = new DistanceField(Arrays.asList(diamond, square), 0, 0, 1, 30, 20);
+
+        for (int row = -2; row < 22; row++) {
+            for (int col = -2; col < 32; col++) {
+                double x = col + 0.5, y = row + 0.5;
+
+                assertEquals(diamond.contains(x, y) || square.contains(x, y), field.isInside(col, row));
+
+                if (!field.isInside(col, row))
+                    continue;
+
+                double nearest = Double.POSITIVE_INFINITY;
+
+                for (int r = -2; r < 22; r++) {
+                    for (int c = -2; c < 32; c++) {
+                        if (!field.isInside(c, r))
+                            nearest = Math.min(nearest, Math.hypot(c - col, r - row));
+                    }
+                }
+
+                assertEquals(nearest - 0.5, field.distance(col, row), EPS);
+            }
+        }
+    }
+}
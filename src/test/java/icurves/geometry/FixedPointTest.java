@@ -0,0 +1,29 @@
+package icurves.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FixedPointTest {
+
+    @Test
+    public void testPack() {
+        assertEquals(FixedPoint.pack(-1500.25, 3000.5), FixedPoint.pack(-1500.25, 3000.5));
+        assertNotEquals(FixedPoint.pack(-1500.25, 3000.5), FixedPoint.pack(3000.5, -1500.25));
+
+        // negative y must not leak into x
+        assertNotEquals(FixedPoint.pack(0, -1), FixedPoint.pack(-1, -1));
+    }
+
+    @Test
+    public void testSamePoint() {
+        // 0.1 + 0.2 != 0.3 in doubles
+        assertTrue(FixedPoint.samePoint(0.1 + 0.2, 5, 0.3, 5));
+        assertFalse(FixedPoint.samePoint(0.3, 5, 0.3, 5.01));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testToFixedOutOfRange() {
+        FixedPoint.toFixed(1e7);
+    }
+}
@@ -0,0 +1,74 @@
+package icurves.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PolygonClipperTest {
+
+    private static final double EPS = 1e-9;
+
+    private final RingPolygon square = RingPolygon.rectangle(0, 0, 10, 10);
+
+    @Test
+    public void testIntersection() {
+        RingPolygon result = PolygonClipper.intersection(square, RingPolygon.rectangle(5, 5, 15, 15));
+
+        assertEquals(1, result.numRings());
+        assertEquals(25, result.area(), EPS);
+        assertTrue(RingPolygon.signedArea(result.ring(0)) > 0);
+        assertTrue(result.contains(7, 7));
+        assertFalse(result.contains(3, 3));
+    }
+
+    @Test
+    public void testDifferenceMakesHole() {
+        RingPolygon result = PolygonClipper.difference(square, RingPolygon.rectangle(3, 3, 7, 7));
+
+        assertEquals(2, result.numRings());
+        assertEquals(84, result.area(), EPS);
+        assertTrue(result.contains(1, 1));
+        assertFalse(result.contains(5, 5));
+    }
+
+    @Test
+    public void testUnionAndXor() {
+        RingPolygon other = RingPolygon.rectangle(5, 5, 15, 15);
+
+        assertEquals(175, PolygonClipper.union(square, other).area(), EPS);
+        assertEquals(150, PolygonClipper.xor(square, other).area(), EPS);
+    }
+
+    @Test
+    public void testSharedEdges() {
+        RingPolygon right = RingPolygon.rectangle(10, 0, 20, 10);
+
+        assertTrue(PolygonClipper.intersection(square, right).isEmpty());
+        assertFalse(PolygonClipper.intersects(square, right));
+        assertEquals(100, PolygonClipper.difference(square, right).area(), EPS);
+
+        RingPolygon union = PolygonClipper.union(square, right);
+        assertEquals(1, union.numRings());
+        assertEquals(4, union.numVertices());
+        assertEquals(200, union.area(), EPS);
+    }
+
+    @Test
+    public void testCollinearOverlap() {
+        RingPolygon inner = RingPolygon.rectangle(0, 2, 4, 8);
+
+        assertEquals(24, PolygonClipper.intersection(square, inner).area(), EPS);
+        assertEquals(76, PolygonClipper.difference(square, inner).area(), EPS);
+        assertTrue(PolygonClipper.difference(inner, square).isEmpty());
+    }
+
+    @Test
+    public void testIntersects() {
+        RingPolygon triangle = new RingPolygon(new double[] { 8, 12, 14, 4, 14, 12 });
+
+        assertTrue(PolygonClipper.intersects(square, triangle));
+        assertFalse(PolygonClipper.intersects(square, RingPolygon.rectangle(20, 20, 30, 30)));
+        assertFalse(PolygonClipper.intersects(square, square.translate(0, 10)));
+        assertTrue(PolygonClipper.intersects(square, square.translate(0, 9)));
+    }
+}
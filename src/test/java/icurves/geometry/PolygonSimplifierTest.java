@@ -0,0 +1,81 @@
+package icurves.geometry;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class PolygonSimplifierTest {
+
+    /**
+     * Square 0..10 with a slight bump of height 0.5 at the middle of its bottom edge.
+     */
+    private final RingPolygon bumpy = new RingPolygon(new double[] { 0, 0, 4, 0, 5, -0.5, 6, 0, 10, 0, 10, 10, 0, 10 });
+
+    @Test
+    public void testVerticesWithinToleranceRemoved() {
+        SegmentRTree<String> none = new SegmentRTree<>(Collections.emptyList(), Collections.emptyList());
+
+        RingPolygon simplified = PolygonSimplifier.simplify(bumpy, 1, none);
+
+        assertEquals(4, simplified.numVertices());
+        assertEquals(100, simplified.area(), 1e-9);
+        assertFalse(simplified.contains(5, -0.4));
+    }
+
+    @Test
+    public void testCrossingsPreserved() {
+        // a thin curve poking into the bump, but not into the square
+        SegmentRTree<String> other = new SegmentRTree<>(
+                Collections.singletonList(RingPolygon.rectangle(4.9, -5, 5.1, -0.25)), Collections.singletonList("other"));
+
+        RingPolygon simplified = PolygonSimplifier.simplify(bumpy, 1, other);
+
+        // the bump is kept, so the other curve still crosses into this one
+        assertTrue(simplified.numVertices() < bumpy.numVertices());
+        assertTrue(simplified.contains(5, -0.4));
+    }
+
+    @Test
+    public void testEnclosedCurveKept() {
+        // a small curve inside the bump, crossing neither the bump nor the edge that would replace it
+        SegmentRTree<String> other = new SegmentRTree<>(
+                Collections.singletonList(RingPolygon.rectangle(4.9, -0.3, 5.1, -0.1)), Collections.singletonList("other"));
+
+        RingPolygon simplified = PolygonSimplifier.simplify(bumpy, 1, other);
+
+        // the bump is kept, so the other curve is still inside this one
+        assertTrue(simplified.contains(5, -0.2));
+        assertTrue(simplified.contains(4.91, -0.29));
+        assertTrue(simplified.contains(5.09, -0.29));
+    }
+
+    @Test
+    public void testNotchNotCutThrough() {
+        // a narrow notch from the top edge reaching down into the bump
+        RingPolygon notched = new RingPolygon(new double[] {
+                0, 0, 4, 0, 5, -0.5, 6, 0, 10, 0, 10, 10,
+                5.1, 10, 5.1, -0.2, 4.9, -0.2, 4.9, 10, 0, 10
+        });
+
+        SegmentRTree<String> none = new SegmentRTree<>(Collections.emptyList(), Collections.emptyList());
+
+        RingPolygon simplified = PolygonSimplifier.simplify(notched, 1, none);
+
+        // cutting off the bump would cross the notch, so the bump is kept
+        assertTrue(simplified.contains(5, -0.3));
+        assertFalse(simplified.contains(5, 5));
+
+        double[] ring = simplified.ring(0);
+        int n = ring.length / 2;
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                assertFalse(Segments.crossProperly(
+                        ring[2 * i], ring[2 * i + 1], ring[2 * ((i + 1) % n)], ring[2 * ((i + 1) % n) + 1],
+                        ring[2 * j], ring[2 * j + 1], ring[2 * ((j + 1) % n)], ring[2 * ((j + 1) % n) + 1]));
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package icurves.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SegmentIndexTest {
+
+    private final SegmentIndex index = new SegmentIndex(RingPolygon.rectangle(0, 0, 10, 10));
+
+    @Test
+    public void testSharedEdge() {
+        assertTrue(index.sharesBoundary(RingPolygon.rectangle(10, 2, 20, 5)));
+        assertTrue(index.sharesBoundary(RingPolygon.rectangle(-5, -5, 5, 0)));
+    }
+
+    @Test
+    public void testTouchingCornerIsNotShared() {
+        assertFalse(index.sharesBoundary(RingPolygon.rectangle(10, 10, 20, 20)));
+        assertFalse(index.sharesBoundary(new RingPolygon(new double[] { 10, 5, 20, 0, 20, 10 })));
+    }
+
+    @Test
+    public void testSeparateOrCrossing() {
+        assertFalse(index.sharesBoundary(RingPolygon.rectangle(11, 0, 20, 10)));
+        assertFalse(index.sharesBoundary(RingPolygon.rectangle(5, 5, 15, 15)));
+    }
+}
@@ -0,0 +1,68 @@
+package icurves.geometry;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SegmentRTreeTest {
+
+    private final SegmentRTree<String> tree = new SegmentRTree<>(Arrays.asList(
+            RingPolygon.rectangle(0, 0, 10, 10),
+            RingPolygon.rectangle(5, 0, 15, 10),
+            new RingPolygon(new double[] { 100, 80, 120, 100, 100, 120, 80, 100 })), Arrays.asList("a", "b", "c"));
+
+    @Test
+    public void testCrossings() {
+        Map<String, Integer> crossings = tree.crossings(-1, 5, 12, 5);
+
+        assertEquals(2, crossings.size());
+        assertEquals(2, (int) crossings.get("a"));
+        assertEquals(1, (int) crossings.get("b"));
+
+        assertTrue(tree.crossings(50, 50, 60, 60).isEmpty());
+        assertEquals(2, (int) tree.crossings(60, 100, 140, 100).get("c"));
+    }
+
+    @Test
+    public void testThroughVertexCountsOnce() {
+        Map<String, Integer> crossings = tree.crossings(-5, -5, 2, 2);
+
+        assertEquals(1, crossings.size());
+        assertEquals(1, (int) crossings.get("a"));
+    }
+
+    @Test
+    public void testPolyline() {
+        Map<String, Integer> crossings = tree.crossings(new double[] { 2, 5, 7, 5, 7, 20 });
+
+        assertEquals(1, (int) crossings.get("a"));
+        assertEquals(2, (int) crossings.get("b"));
+    }
+
+    @Test
+    public void testCrossingPoints() {
+        double[] points = tree.crossingPoints(-1, 5, 4, 5);
+
+        assertArrayEquals(new double[] { 0, 5 }, points, 1e-9);
+    }
+
+    @Test
+    public void testDistance() {
+        assertEquals(2, tree.distance(12, 5), 1e-9);
+        assertEquals(5, tree.distance(-5, 5), 1e-9);
+        assertEquals(0, tree.distance(120, 100), 1e-9);
+    }
+
+    @Test
+    public void testSegmentDistance() {
+        // parallel to the right side of b
+        assertEquals(3, tree.distance(18, 2, 18, 8), 1e-9);
+        // crosses a
+        assertEquals(0, tree.distance(-5, 5, 2, 5), 1e-9);
+        // endpoint of c nearest to the segment
+        assertEquals(10, tree.distance(130, 90, 130, 110), 1e-9);
+    }
+}
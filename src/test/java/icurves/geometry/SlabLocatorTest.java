@@ -0,0 +1,42 @@
+package icurves.geometry;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SlabLocatorTest {
+
+    @Test
+    public void testLocateArrangementFaces() {
+        Arrangement arrangement = new Arrangement(Arrays.asList(
+                RingPolygon.rectangle(0, 0, 10, 10),
+                new RingPolygon(new double[] { 5, -3, 13, 5, 5, 13, -3, 5 })), RingPolygon.rectangle(-20, -20, 20, 20));
+
+        SlabLocator<Long> locator = new SlabLocator<>(
+                Arrays.asList(arrangement.getFace(0), arrangement.getFace(0b01), arrangement.getFace(0b10), arrangement.getFace(0b11)),
+                Arrays.asList(0L, 0b01L, 0b10L, 0b11L));
+
+        assertEquals(0b11L, (long) locator.locate(5, 5));
+        assertEquals(0b01L, (long) locator.locate(0.5, 0.5));
+        assertEquals(0b10L, (long) locator.locate(12, 5));
+        assertEquals(0L, (long) locator.locate(-15, 15));
+        assertNull(locator.locate(25, 0));
+    }
+
+    @Test
+    public void testHole() {
+        RingPolygon ring = new RingPolygon(
+                new double[] { 0, 0, 10, 0, 10, 10, 0, 10 },
+                new double[] { 3, 3, 3, 7, 7, 7, 7, 3 });
+
+        SlabLocator<String> locator = new SlabLocator<>(
+                Arrays.asList(ring, RingPolygon.rectangle(3, 3, 7, 7)), Arrays.asList("ring", "hole"));
+
+        assertEquals("ring", locator.locate(1, 5));
+        assertEquals("hole", locator.locate(5, 5));
+        assertEquals("ring", locator.locate(5, 9));
+        assertNull(locator.locate(5, 11));
+    }
+}
@@ -0,0 +1,56 @@
+package icurves.util
+
+import org.junit.Test
+
+import org.junit.Assert.*
+import org.hamcrest.CoreMatchers.*
+
+/**
+ *
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class LruCacheTest {
+
+    @Test
+    fun `Test least recently used entry is evicted`() {
+        val cache = LruCache<String, Int>(2)
+
+        cache.put("a", 1)
+        cache.put("b", 2)
+
+        // "a" is now more recent than "b"
+        assertThat(cache.get("a"), `is`(1))
+
+        cache.put("c", 3)
+
+        assertThat(cache.size(), `is`(2))
+        assertThat(cache.get("b"), `is`(nullValue()))
+        assertThat(cache.get("a"), `is`(1))
+        assertThat(cache.get("c"), `is`(3))
+    }
+
+    @Test
+    fun `Test value is computed once`() {
+        val cache = LruCache<String, Int>(2)
+        var computed = 0
+
+        cache.getOrPut("a") { ++computed }
+        cache.getOrPut("a") { ++computed }
+
+        assertThat(cache.get("a"), `is`(1))
+        assertThat(computed, `is`(1))
+    }
+
+    @Test
+    fun `Test hits and misses are counted`() {
+        val cache = LruCache<String, Int>(2)
+
+        cache.getOrPut("a") { 1 }
+        cache.getOrPut("a") { 1 }
+        cache.get("b")
+
+        assertThat(cache.hits(), `is`(1L))
+        assertThat(cache.misses(), `is`(2L))
+    }
+}